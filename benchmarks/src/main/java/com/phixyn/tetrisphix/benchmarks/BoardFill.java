@@ -0,0 +1,55 @@
+package com.phixyn.tetrisphix.benchmarks;
+
+import java.util.Random;
+
+import com.phixyn.tetrisphix.engine.Playfield;
+import com.phixyn.tetrisphix.piece.Piece;
+
+/**
+ * Fills the bottom rows of a playfield with seeded garbage, so that every
+ * benchmark can be run against boards of several heights. Every garbage row
+ * has exactly one hole, so no row is ever full.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ */
+final class BoardFill {
+
+	// Seed of the garbage, so that every run measures the same boards
+	private static final long SEED = 0x7E7215L;
+
+	private BoardFill() {
+	}
+
+	/**
+	 * Clears a playfield and fills its bottom rows with garbage.
+	 *
+	 * @param field - 	the playfield to fill
+	 * @param rows - 	the number of garbage rows
+	 */
+	static void fill(Playfield field, int rows) {
+		Random random = new Random(SEED);
+		field.clear();
+		for (int row = field.ROWS - rows; row < field.ROWS; row++) {
+			int hole = random.nextInt(field.COLUMNS);
+			for (int col = 0; col < field.COLUMNS; col++) {
+				if (col != hole) field.setTile(col, row, random.nextInt(Piece.SPRITE_COUNT));
+			}
+		}
+	}
+
+	/**
+	 * Fills the holes of the given bottom rows, so that they are cleared by
+	 * the next line clear that checks them.
+	 *
+	 * @param field - 	the playfield
+	 * @param rows - 	the number of bottom rows to complete
+	 */
+	static void completeBottomRows(Playfield field, int rows) {
+		for (int row = field.ROWS - rows; row < field.ROWS; row++) {
+			for (int col = 0; col < field.COLUMNS; col++) {
+				if (!field.isFilled(col, row)) field.setTile(col, row, 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.phixyn.tetrisphix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.phixyn.tetrisphix.engine.BagRandomizer;
+import com.phixyn.tetrisphix.engine.GameEngine;
+import com.phixyn.tetrisphix.engine.Playfield;
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+
+/**
+ * Benchmarks of the game engine's hot paths: the collision test, adding a
+ * piece to the board, deleting lines, adding garbage and a whole lock cycle,
+ * on boards with a varying number of garbage rows.
+ * <p>
+ * Run with -prof gc to see the allocation of each path.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		GameEngine
+ * @see		Playfield
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+	// Seed of the game, so that every run measures the same pieces
+	private static final long SEED = 42;
+
+	// Maximum number of rows completed for the line deletion benchmark
+	private static final int LINES = 4;
+
+	// Number of garbage rows at the bottom of the board
+	@Param({"0", "5", "10", "15"})
+	public int filledRows;
+
+	private GameEngine engine;
+	private Piece piece;
+	private int rotation, spawnY, landingRow;
+
+	// Boards copied before each mutation, and the board being mutated
+	private final Playfield filled = new Playfield();
+	private final Playfield withLines = new Playfield();
+	private final Playfield work = new Playfield();
+	private int lines;
+
+	// Game played by the lock cycle benchmark
+	private GameEngine game;
+
+	@Setup
+	public void setup() {
+		engine = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED));
+		engine.start(SEED);
+		BoardFill.fill(engine.getPlayfield(), filledRows);
+		piece = engine.getCurrentPiece();
+		rotation = piece.getRotation();
+		spawnY = piece.getY();
+		landingRow = engine.getLandingRow();
+
+		filled.copyFrom(engine.getPlayfield());
+		lines = Math.min(LINES, filledRows);
+		withLines.copyFrom(filled);
+		BoardFill.completeBottomRows(withLines, lines);
+
+		game = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED));
+		restartGame();
+	}
+
+	private void restartGame() {
+		game.start(SEED);
+		BoardFill.fill(game.getPlayfield(), filledRows);
+	}
+
+	/**
+	 * Tests the current piece against every column of the board, at its
+	 * spawn row and at its landing row.
+	 */
+	@Benchmark
+	public void canMove(Blackhole bh) {
+		for (int x = -1; x < engine.getColumns(); x++) {
+			bh.consume(engine.canMove(rotation, x, spawnY));
+			bh.consume(engine.canMove(rotation, x, landingRow));
+		}
+	}
+
+	/**
+	 * Copies the board, which the addPiece and deletePossibleLines
+	 * benchmarks also do, so that its cost can be subtracted from theirs.
+	 */
+	@Benchmark
+	public Playfield copyBoard() {
+		work.copyFrom(filled);
+		return work;
+	}
+
+	/**
+	 * Adds the current piece to the board where it lands.
+	 */
+	@Benchmark
+	public boolean addPiece() {
+		work.copyFrom(filled);
+		return work.lock(piece.getShape(), rotation, piece.getX(), landingRow, piece.getSpriteID());
+	}
+
+	/**
+	 * Deletes up to four full lines at the bottom of the board.
+	 */
+	@Benchmark
+	public int deletePossibleLines() {
+		work.copyFrom(withLines);
+		return work.clearLines(work.ROWS - LINES, work.ROWS - 1, false);
+	}
+
+	/**
+	 * Pushes the board up by two rows of garbage, as sent by an opponent.
+	 */
+	@Benchmark
+	public boolean addGarbage() {
+		work.copyFrom(filled);
+		return work.addGarbage(2, 0, 0);
+	}
+
+	/**
+	 * Hard drops the current piece and steps the game, which adds the piece,
+	 * deletes the lines it fills and generates the next piece.
+	 */
+	@Benchmark
+	public int lockCycle() {
+		if (game.isOver()) restartGame();
+		game.hardDrop();
+		game.step();
+		return game.getLinesClear();
+	}
+}
@@ -0,0 +1,92 @@
+package com.phixyn.tetrisphix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.phixyn.tetrisphix.engine.BagRandomizer;
+import com.phixyn.tetrisphix.engine.Playfield;
+import com.phixyn.tetrisphix.engine.Randomizer;
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+
+/**
+ * Benchmarks of piece creation: constructing a piece of each type, and
+ * generating a piece the way the game engine does when a piece spawns.
+ * <p>
+ * Run with -prof gc to see the allocation of each path.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		PieceRegistry
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmark {
+
+	// Type of the piece constructed, one of the PieceRegistry constants
+	@Param({"0", "1", "2", "3", "4", "5", "6"})
+	public int type;
+
+	private Randomizer randomizer;
+
+	// Spare piece of each type, as kept by the engine for the locked pieces
+	private Piece[] spares;
+
+	// Column offset the engine adds to center a new piece
+	private int spawnOffset;
+
+	@Setup
+	public void setup() {
+		randomizer = new BagRandomizer(PieceRegistry.getPieceCount(), 42);
+		spawnOffset = new Playfield().COLUMNS / 2;
+		spares = new Piece[PieceRegistry.getPieceCount()];
+	}
+
+	@Benchmark
+	public Piece construct() {
+		return PieceRegistry.create(type);
+	}
+
+	/**
+	 * Does the same work as the game engine's generatePiece method, which
+	 * is private: picks a type and a sprite, reuses the spare piece of that
+	 * type, or creates one if there is none, and resets and centers it. The
+	 * piece is then given back as a spare, as the engine does once it locks,
+	 * so after the first few calls every piece is reused, like in a running
+	 * game. The type parameter is ignored.
+	 */
+	@Benchmark
+	public Piece generatePiece() {
+		int pieceType = randomizer.nextPiece();
+		Piece piece = spares[pieceType];
+		if (piece != null) {
+			spares[pieceType] = null;
+			piece.setRotation(0);
+			piece.setY(Piece.SPAWN_POSITION);
+			piece.setFalling(true);
+		}
+		else {
+			piece = PieceRegistry.create(pieceType);
+		}
+		piece.setSpriteID(randomizer.nextInt(Piece.SPRITE_COUNT));
+		piece.setX(Piece.SPAWN_POSITION + spawnOffset);
+
+		spares[pieceType] = piece;
+		return piece;
+	}
+}
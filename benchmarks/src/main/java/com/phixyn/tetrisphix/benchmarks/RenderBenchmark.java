@@ -0,0 +1,66 @@
+package com.phixyn.tetrisphix.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.phixyn.tetrisphix.Board;
+
+/**
+ * Benchmark of the board's paintComponent method, drawing into an offscreen
+ * BufferedImage instead of the screen, on boards with a varying number of
+ * garbage rows. Runs headless, so no display is needed.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Board
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+	// Number of garbage rows at the bottom of the board
+	@Param({"0", "5", "10", "15"})
+	public int filledRows;
+
+	private Board board;
+	private BufferedImage image;
+	private Graphics2D g2d;
+
+	@Setup
+	public void setup() {
+		board = new Board();
+		board.getEngine().start(42);
+		BoardFill.fill(board.getEngine().getPlayfield(), filledRows);
+		image = new BufferedImage(board.getWidth(), board.getHeight(), BufferedImage.TYPE_INT_RGB);
+		g2d = image.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		g2d.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage paintComponent() {
+		board.paintComponent(g2d);
+		return image;
+	}
+}
@@ -1,37 +1,51 @@
 package com.phixyn.tetrisphix;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Random;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
+import javax.swing.JComponent;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
 import javax.swing.Timer;
 
-import com.phixyn.tetrisphix.piece.JPiece;
-import com.phixyn.tetrisphix.piece.LPiece;
-import com.phixyn.tetrisphix.piece.LinePiece;
+import com.phixyn.tetrisphix.ai.BeamSearchPlayer;
+import com.phixyn.tetrisphix.ai.ComputerPlayer;
+import com.phixyn.tetrisphix.ai.Player;
+import com.phixyn.tetrisphix.engine.GameEngine;
+import com.phixyn.tetrisphix.engine.GameSnapshot;
+import com.phixyn.tetrisphix.engine.PieceState;
+import com.phixyn.tetrisphix.engine.PlacementList;
+import com.phixyn.tetrisphix.engine.Playfield;
+import com.phixyn.tetrisphix.engine.PureRandomizer;
+import com.phixyn.tetrisphix.engine.Timeline;
+import com.phixyn.tetrisphix.gfx.Tetrominos;
 import com.phixyn.tetrisphix.piece.Piece;
-import com.phixyn.tetrisphix.piece.SPiece;
-import com.phixyn.tetrisphix.piece.SquarePiece;
-import com.phixyn.tetrisphix.piece.TPiece;
-import com.phixyn.tetrisphix.piece.ZPiece;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+import com.phixyn.tetrisphix.piece.PieceShape;
 
 /**
- * Class responsible for handling the game logic and doing most of the heavy
- * lifting in the game. It handles the drawing of the game board and the
- * Tetrominos. Additionally, it performs all game functions such as
- * generating Tetrominos, detecting collisions, clearing lines and checking if
- * the game is over or paused. For handling keyboard input, an instance of the
- * InputManager class is used.
+ * Class responsible for running the game on screen. It handles the drawing of
+ * the game board and the Tetrominos, and drives the GameEngine, which
+ * performs all game functions such as generating Tetrominos, detecting
+ * collisions, clearing lines and checking if the game is over, with a Swing
+ * Timer. It also keeps track of whether the game is paused. For handling
+ * keyboard input, an instance of the InputManager class is used.
  * 
  * @author	Alpeche Pancha
  * @version 1.0.5, 19 December 2014
+ * @see 	GameEngine
  * @see 	InputManager
  * @see 	Piece
  */
@@ -40,23 +54,52 @@ public class Board extends JPanel {
 	// Serial Version UID
 	private static final long serialVersionUID = 1L;
 	
-	// Board grid's columns and rows
-	private final int COLUMNS = 10;
-	private final int ROWS = 20;
+	// Number of upcoming pieces shown by default
+	private static final int DEFAULT_PREVIEW = 3;
+	
+	// Board grid's columns and rows, which can be changed with the
+	// tetrisphix.columns and tetrisphix.rows system properties. Boards too
+	// narrow for the pieces are widened to fit them.
+	private final int COLUMNS = Math.max(GameEngine.MIN_COLUMNS,
+			Integer.getInteger("tetrisphix.columns", Playfield.DEFAULT_COLUMNS));
+	private final int ROWS = Integer.getInteger("tetrisphix.rows", Playfield.DEFAULT_ROWS);
+	
+	// Number of upcoming pieces shown, which can be changed with the
+	// tetrisphix.preview system property
+	private final int PREVIEW = Math.max(1, Math.min(GameEngine.MAX_PREVIEW,
+			Integer.getInteger("tetrisphix.preview", DEFAULT_PREVIEW)));
+	
+	// Computer player, which can be changed with the tetrisphix.player system
+	// property: "beam" plans ahead with every piece shown, "parallel" looks
+	// at the next piece only but scores the placements on every core
+	private final String PLAYER = System.getProperty("tetrisphix.player", "beam");
+	
+	// Game rules and state. The board draws it and drives it with a timer.
+	private final GameEngine engine = new GameEngine(
+			new PureRandomizer(PieceRegistry.getPieceCount(), System.nanoTime()), COLUMNS, ROWS, PREVIEW);
 	
 	// Size of each tile in the grid
 	private final int TILE_SIZE = 24;
 	
+	// Delay, in milliseconds, between two frames of the game
+	private final int FRAME_DELAY = 1000 / GameEngine.FRAMES_PER_SECOND;
+	
 	// Board (JPanel) dimensions
 	public final int BOARD_WIDTH = COLUMNS * TILE_SIZE;
 	public final int BOARD_HEIGHT = ROWS * TILE_SIZE;
 	private final Dimension SIZE = new Dimension(BOARD_WIDTH, BOARD_HEIGHT);
+	// Largest part of the board shown at once, the size of a default board
+	private final Dimension VIEW_SIZE = new Dimension(
+			Math.min(BOARD_WIDTH, Playfield.DEFAULT_COLUMNS * TILE_SIZE),
+			Math.min(BOARD_HEIGHT, Playfield.DEFAULT_ROWS * TILE_SIZE));
 	
 	// Board colors
 	private final Color BACKGROUND_PANEL_COLOR = Color.BLACK;
 	private final Color PANEL_BORDER_COLOR = new Color(144, 144, 144);
 	// Board's background grid color
 	private final Color BACKGROUND_GRID_COLOR = new Color(30, 30, 30);
+	// Translucency of the ghost piece showing where the current piece lands
+	private final Composite GHOST_PIECE_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.3f);
 	
 	// Font for game information strings, such as "Paused" or "Game over"
 	private final Font GAME_INFO_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 18);
@@ -64,43 +107,37 @@ public class Board extends JPanel {
 	// Board (JPanel) X and Y coordinates
 	public int x, y;
 	
-	/* 2D array representing the state of each of the tiles in the board's
-	 * grid. If a value is above 0, then the tile is filled with a block.
-	 * The number represents the sprite ID of the block or, in other
-	 * words, its color. */
-	private int[][] boardTiles = new int[COLUMNS][ROWS];
-	
-	// Game data constants
-	private final int SCORE_MULTIPLIER = 10;
-	private final int LINES_PER_LEVEL = 10;
-	private final int INITIAL_GAME_TIMER_DELAY = 400;
-	// Stop decrementing the game delay after we reach this number
-	private final int MINIMUM_GAME_TIMER_DELAY = 50;
-	// Decrement game delay by this amount every level
-	private final int GAME_TIMER_DELAY_MULTIPLIER = 50;
-	
-	// Game data and information
-	public int playerScore;
-	public int linesClear;
-	public int linesLeft;
-	public int gameLevel;
-	private int gameTimerDelay;
-	public String gameMode;
-	
 	// Game state information
-	public boolean isOver = false;
 	public boolean isPaused = false;
 	public boolean isStarted = false;
 	
-	// Piece (tetromino) objects
-	public Piece currentPiece;
-	public Piece nextPiece;
-	
 	// Keyboard and mouse input manager object
 	private InputManager inputManager;
 	
 	// Swing Timer used to update the game according to the game's speed
 	public Timer timer;
+	
+	// Computer player moving the pieces, or null if the player is human
+	private Player computerPlayer;
+	// Last piece planned by the computer player
+	private Piece plannedPiece;
+	/* The computer player searches a copy of the game on a background
+	 * thread, so that the timer keeps running and the board keeps painting
+	 * while it thinks. The copy, the state it is restored from and the
+	 * search running, if any. */
+	private GameEngine searchEngine;
+	private final GameSnapshot searchSnapshot = new GameSnapshot();
+	private SwingWorker<Integer, Void> search;
+	// Changed whenever a game starts or is moved through its history, so
+	// that the result of a search of an older game is thrown away
+	private int gameVersion;
+	// Placements of the current piece, used to move it where it was planned
+	private final PlacementList placements = new PlacementList();
+	
+	// Undo and redo history in practice mode, or null in the other modes
+	private Timeline timeline;
+	// Piece that was current when the last version was recorded
+	private Piece recordedPiece;
 		
 	/**
 	 * Initializes and sets up the JPanel and game timer.
@@ -131,16 +168,12 @@ public class Board extends JPanel {
 		// implements the MouseListener interface
 		this.addMouseListener(this.inputManager);
 		
-		// Generate the pieces, or tetrominos
-		this.currentPiece = generatePiece();
-		this.nextPiece = generatePiece();
-		
-		/* Define the Swing Timer. This will repeatedly call the update method
-		 * with the delay defined by gameTimerDelay. This delay is decremented
-		 * every time the player completes a level, causing the tetrominos to
-		 * fall faster. The minimum delay is set to 50 by default, and by the
-		 * time the player reaches it, they might not have any sanity left. */ 
-		this.timer = new Timer(this.gameTimerDelay, new ActionListener() {
+		/* Define the Swing Timer. This will call the update method 60 times a
+		 * second, once per frame. The gravity of the engine grows every time
+		 * the player completes a level, causing the tetrominos to fall
+		 * faster, up to 20 rows per frame, and by the time the player reaches
+		 * it, they might not have any sanity left. */ 
+		this.timer = new Timer(FRAME_DELAY, new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent ev) {				
 				update();
@@ -149,26 +182,20 @@ public class Board extends JPanel {
 	}
 	
 	/**
-	 * Starts a new game. Resets the board by clearing its tiles, resets all
-	 * game data and restarts the timer with the initial game timer delay.
+	 * Starts a new game. Resets the game engine, which clears the board's
+	 * tiles and resets all game data, and restarts the timer.
 	 */
 	public void start() {
-		// Set our boardTiles array to a new array with values initialized to 0
-		boardTiles = new int[COLUMNS][ROWS];
-		
-		// Reset game data
-		playerScore = 0;
-		linesClear = 0;
-		linesLeft = 10;
-		gameLevel = 1;
-		gameTimerDelay = INITIAL_GAME_TIMER_DELAY;
-		isOver = false;
+		engine.start();
+		gameVersion++;
+		plannedPiece = null;
+		timeline = null;
+		if (engine.getGameMode().equals("Practice")) {
+			if (engine.canSnapshot()) timeline = new Timeline(engine);
+			else System.out.println("[ERROR] Undo is not available on a board of this size.");
+		}
+		recordedPiece = engine.getCurrentPiece();
 		isStarted = true;
-		
-		// Generate the pieces, or tetrominos, and start timer
-		currentPiece = generatePiece();
-		nextPiece = generatePiece();
-		timer.setDelay(this.gameTimerDelay);
 		timer.start();
 	}
 
@@ -181,322 +208,253 @@ public class Board extends JPanel {
 	}
 	
 	/**
-	 * Generates a random Piece object using a random integer generator and
-	 * sets its X coordinate so that it spawns in the middle of the board.
+	 * Advances the game engine by one frame, which moves the current piece
+	 * down as far as gravity takes it or adds it to the board. If the game
+	 * is over, the timer is stopped.
 	 * 
-	 * @return 	thePiece - the generated Piece object itself, in all its glory.
-	 * @see 	Piece
+	 * @see GameEngine#frame()
 	 */
-	private Piece generatePiece() {
-		// Piece object to be returned
-		Piece thePiece = null;
+	public void update() {
+		engine.frame();
 		
-		// Generating the random integer
-		Random pieceTypeGen = new Random();
-		int pieceType = pieceTypeGen.nextInt(7);
+		// In practice mode, record every placement as soon as the next piece
+		// spawns, so that it can be undone
+		if (timeline != null && engine.getCurrentPiece() != recordedPiece) {
+			recordedPiece = engine.getCurrentPiece();
+			timeline.record();
+		}
 		
-		// Generating the piece and setting its X value so that it spawns
-		// in the center of the board
-		switch (pieceType) {
-			case 0:
-				thePiece = new SquarePiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
-			case 1:
-				thePiece = new LinePiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
-			case 2:
-				thePiece = new LPiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
-			case 3:
-				thePiece = new JPiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
-			case 4:
-				thePiece = new TPiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
-			case 5:
-				thePiece = new SPiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
-			case 6:
-				thePiece = new ZPiece();
-				thePiece.setX(thePiece.getX() + COLUMNS / 2);
-				break;
+		// Let the computer player plan each new piece as soon as it spawns,
+		// so that it is in place before it falls far
+		if (computerPlayer != null && search == null && !engine.isOver()
+				&& engine.getCurrentPiece() != plannedPiece) {
+			plannedPiece = engine.getCurrentPiece();
+			startSearch();
 		}
 		
-		return thePiece;	
+		// On a board larger than its view, keep the current piece in sight
+		Piece piece = engine.getCurrentPiece();
+		scrollRectToVisible(new Rectangle(piece.getX() * TILE_SIZE, piece.getY() * TILE_SIZE,
+				PieceShape.SIZE * TILE_SIZE, PieceShape.SIZE * TILE_SIZE));
+		
+		if (engine.isOver()) {
+			stop();
+		}
+		
+		repaint();
 	}
 	
 	/**
-	 * Adds a complete piece representation to the boardTiles 2D array.
-	 * The piece representation is stored in a 3D integer array similar to the
-	 * boardTiles array, called pieceTiles. Each value of pieceTiles consists
-	 * of a 4 by 4 2D int array representing the piece - a value of 1
-	 * represents a filled tile on the grid.
-	 * <p>
-	 * Thus, we can simply loop through the pieceTiles array and whenever we
-	 * encounter a value of 1, we set the corresponding tile in boardTiles to a
-	 * number. The number we set in boardTiles is the sprite ID of the piece,
-	 * so that when we draw the tiles in boardTiles, we know which sprites to use.
-	 * 
-	 * @param 	piece	-	the Piece to be stored on the board
-	 * @see		Piece
+	 * Plans the current piece on a background thread. The computer player
+	 * plays a copy of the game, and once it is done the game loop moves the
+	 * current piece to the same place, if the piece is still in play.
 	 */
-	private void addPiece(Piece piece) {
-		// Get the current rotation of the piece.
-		// Used to access the appropriate piece configuration.
-		int pRotation = piece.getRotation();
+	private void startSearch() {
+		if (searchEngine == null) {
+			searchEngine = new GameEngine(engine.getRandomizer().copy(), COLUMNS, ROWS, PREVIEW);
+		}
+		engine.saveSnapshot(searchSnapshot);
+		final Player player = computerPlayer;
+		final Piece piece = engine.getCurrentPiece();
+		final int version = gameVersion;
 		
-		/* Store each block of the piece into the board.
-		 * This is achieved by checking all the values of the pieceTiles array
-		 * and storing them in the corresponding 4 by 4 area of the boardTiles
-		 * array. We obtain the correct array indices by getting the X and Y
-		 * coordinates of the piece and looping through the 4 by 4 area within
-		 * these coordinates.
-		 * 
-		 * int px - piece X coordinate
-		 * int py - piece Y coordinate
-		 * int pcol - current column of the piece representation
-		 * int prow - current row of the piece representation 
-		 */
-		for (int px = piece.getX(), pcol = 0; px < piece.getX() + 4; px++, pcol++)
-		{
-			for (int py = piece.getY(), prow = 0; py < piece.getY() + 4; py++, prow++)
-			{	
-				// Store only the blocks of the piece that are filled
-				if (piece.getPieceTiles()[pRotation][prow][pcol] != 0) {
-					try {
-						/* Set the value in boardTiles to be the index of
-						 * sprites + 1 (because it has to be above 0 for us to
-						 * know that it represents a filled block!) */
-						boardTiles[px][py - 1] = piece.getSpriteID() + 1;
-					} catch (ArrayIndexOutOfBoundsException ex) {
-						/* If we have reached the top of the board and cannot add any more
-						 * tiles, then it's game over man, game over! */
-						isOver = true;
-					}
+		search = new SwingWorker<Integer, Void>() {
+			@Override
+			protected Integer doInBackground() {
+				searchEngine.restoreSnapshot(searchSnapshot);
+				// The piece is left where it lands, without being locked
+				if (!player.play(searchEngine)) return PieceState.NONE;
+				return searchEngine.getPieceState();
+			}
+			
+			@Override
+			protected void done() {
+				search = null;
+				int target;
+				try {
+					target = get();
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				catch (ExecutionException e) {
+					System.out.println("[ERROR] The computer player failed: " + e.getCause());
+					return;
+				}
+				if (target != PieceState.NONE && player == computerPlayer && version == gameVersion
+						&& engine.getCurrentPiece() == piece && !engine.isOver()) {
+					moveTo(target);
+					repaint();
 				}
 			}
-		}
+		};
+		search.execute();
 	}
-			
+	
 	/**
-	 * Checks for collision against other pieces in the board and board limits.
-	 * This is achieved by checking the 4 by 4 area of the blocks against the
-	 * appropriate area in the board (the matching 4 by 4 area that the block
-	 * is travelling).
+	 * Moves the current piece to a placement, from wherever it has fallen to
+	 * since it was planned, with the same moves as the InputManager. The
+	 * piece is left where it is if it can no longer reach the placement.
 	 * 
-	 * @param pRotation - 	current piece rotation
-	 * @param pX - 			current piece column
-	 * @param pY - 			current piece row
-	 * @return				boolean value indicating if the move is possible.
-	 * @see					Piece
+	 * @param target - the packed state of the placement
 	 */
-	public boolean canMove(int pRotation, int pX, int pY) {
-		for (int pTileX = pX, bTileX = 0; pTileX < pX + 4; pTileX++, bTileX++)
-		{
-			for (int pTileY = pY, bTileY = 0; pTileY < pY + 4; pTileY++, bTileY++)
-			{	
-				// Check if the piece collides with the limits of the board
-				if (pTileX < 0 || pTileX > COLUMNS - 1 || pTileY > ROWS - 1)
-				{
-					if (currentPiece.getPieceTiles()[pRotation][bTileY][bTileX] != 0) {
-						// System.out.println("[DEBUG] Wall collision");
-						return false;
-					}
-				}
-				
-				/* Check if the piece collides with any of the blocks already
-				 * stored in the board.
-				 * 
-				 * Remember, a value in boardTiles is greater than 1 if it is
-				 * filled with a block, thus not empty. Similarly, if a value
-				 * in pieceTiles is 1, then it means that value represents a
-				 * block. */
-				if (pTileY >= 0) {
-					if (currentPiece.getPieceTiles()[pRotation][bTileY][bTileX] > 0 && boardTiles[pTileX][pTileY] > 0) {
-						// System.out.println("[DEBUG] Block collision");
-						return false;
-					}
+	private void moveTo(int target) {
+		int count = engine.generatePlacements(placements);
+		for (int i = 0; i < count; i++) {
+			if (placements.getX(i) == PieceState.getX(target) && placements.getY(i) == PieceState.getY(target)
+					&& placements.getRotation(i) == PieceState.getRotation(target)) {
+				for (int step = 0; step < placements.getPathLength(i); step++) {
+					engine.applyInput(placements.getInput(i, step));
 				}
-				
-			}	/* End of inner for loop */
-		}		/* End of for loop. */
-		
-		// If nothing above us returns false, then the move is indeed possible.
-		return true;
+				return;
+			}
+		}
 	}
 	
 	/**
-	 * Deletes a whole line from the board, by moving all the lines above it
-	 * down by 1. In classic mode, a line is deleted regardless of the color of
-	 * the blocks that fill it. In hardcore mode, a line must be filled with
-	 * blocks of the same color in order to be cleared (good luck with that!).
+	 * Switches between the human player and the computer player. When the
+	 * computer player is on, it moves every new piece through the engine
+	 * with the same moves as the InputManager, planning ahead with the
+	 * pieces it can see. It plans on a background thread, while the game
+	 * goes on.
 	 * 
-	 * @param lineY - Y position of the line to be deleted (in row, not pixels)
+	 * @see BeamSearchPlayer
+	 * @see ComputerPlayer
 	 */
-	private void deleteLine(int lineY) {
-		// Was a line cleared successfully?
-		boolean deleted = false;
-		
-		/* Delete a line in Classic Tetris mode. If a line is filled, it can be
-		 * cleared, regardless of the colors of the blocks that fill the line. */
-		if (gameMode.equals("Classic")) {
-			for (int i = lineY; i > 0; i--) {
-				// Loop through each line of the grid from the line we're
-				// supposed to clear, until the bottom of the grid
-				for (int j = 0; j < COLUMNS; j++) {
-					// Shift the tiles down by one row
-					boardTiles[j][i] = boardTiles[j][i-1];
-				}
-			}
-			deleted = true;
+	public void toggleComputerPlayer() {
+		if (!engine.canSnapshot()) {
+			System.out.println("[ERROR] The computer player can't play on a board of this size.");
 		}
-		
-		/* Delete a line in Hardcore Tetris mode.
-		 * If a line is filled and if all the blocks in the line are of the
-		 * same color, it can be cleared. This is a more challenging mode,
-		 * which drains more sanity from the player. */
-		else if (gameMode.equals("Hardcore")) {
-			// Indicates whether we can clear the line or not
-			boolean canClear = false;
-			// Color ID of the first block in the line we're checking
-			int colorID = boardTiles[0][lineY];
-			
-			for (int c = 0; c < COLUMNS; c++) { 
-				/* Go through each block in the row and check if they're all
-				 * the same color. If so, canClear ends up with the value true. */
-				if (boardTiles[c][lineY] == colorID) canClear = true;
-				else canClear = false;
-			}
-			
-			// If all the blocks in the row are the same color, we can clear. 
-			if (canClear) {
-				// Clear the line like we did before
-				for (int i = lineY; i > 0; i--) {
-					for (int j = 0; j < COLUMNS; j++) {
-						boardTiles[j][i] = boardTiles[j][i-1];
-					}
-				}
-				deleted = true;
-			}
+		else if (computerPlayer == null) {
+			computerPlayer = createComputerPlayer();
+			plannedPiece = null;
 		}
-		
-		// If a line was deleted, update score, lines and level.
-		if (deleted) {
-			playerScore += SCORE_MULTIPLIER;
-			linesClear++;
-			linesLeft--;
-			// If we cleared the number of lines required to advance level,
-			// increment the game level and reset linesLeft.
-			if (linesLeft == 0) {
-				gameLevel++;
-				linesLeft = LINES_PER_LEVEL;
-				// If we haven't reached the minimum game speed, decrement it
-				if (gameTimerDelay > MINIMUM_GAME_TIMER_DELAY) {
-					gameTimerDelay -= GAME_TIMER_DELAY_MULTIPLIER;
-					timer.setDelay(this.gameTimerDelay);
-					timer.restart();
-				}
-			}
+		else {
+			computerPlayer = null;
 		}
 	}
 	
 	/**
-	 * Deletes all the lines in the board that are filled. This is done by
-	 * looping through every row of the board and checking if it contains
-	 * any blocks. If the row is filled, then we call the deleteLine method
-	 * defined above. 
+	 * Creates the computer player chosen with the tetrisphix.player system
+	 * property, or the beam search player if it names no player.
+	 * 
+	 * @return a new computer player.
 	 */
-	public void deletePossibleLines() {
-		for (int i = 0; i < ROWS; i++) {
-			int j = 0;
-			while (j < COLUMNS) {
-				// If a column is empty, then the row can't be filled
-				if (boardTiles[j][i] == 0) {
-					break;
-				}
-				j++;
-			}
-			// If all the columns are filled, then we can delete the line
-			if (j == COLUMNS) deleteLine(i);
+	private Player createComputerPlayer() {
+		if (PLAYER.equals("parallel")) return new ComputerPlayer();
+		if (!PLAYER.equals("beam")) {
+			System.out.println("[ERROR] Unknown computer player " + PLAYER + ", using the beam search player.");
 		}
+		return new BeamSearchPlayer();
 	}
 	
 	/**
-	 * Checks if the game is over by seeing if the top most row of the board
-	 * contains any blocks. If it does, then game over man, game over!
+	 * Undoes the last piece placement in practice mode. The game is resumed
+	 * if it was over.
 	 * 
-	 * @return true if the top most row is filled, false otherwise.
+	 * @see Timeline
 	 */
-	private boolean isGameOver() {
-		for (int i = 0; i < COLUMNS; i++)
-		{
-			if (boardTiles[i][0] > 0) return true;
-		}
-		return false;
+	public void undo() {
+		if (canTimeTravel() && timeline.undo()) resume();
 	}
 	
 	/**
-	 * Attempts to move the current piece down by one row. If a piece has
-	 * reached the bottom of the board or collided with the top of another
-	 * piece in the board, then we make the piece stop, add it to the
-	 * boardTiles array and update the current piece and next piece.
-	 * Additionally, we check if we can clear any lines, if they are filled,
-	 * by calling the deletePossibleLines method.
-	 * <p>
-	 * This method also checks if the game is over by calling the isGameOver
-	 * method. If isGameOver returns true, it calls the stop method.
+	 * Redoes the last piece placement undone in practice mode.
+	 * 
+	 * @see Timeline
 	 */
-	public void update() {
-		// Check if we can move the current piece down and do so if we can
-		if (canMove(currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY() + 1)) {
-			currentPiece.setY(currentPiece.getY() + 1);
-		}
-		
-		// If we can't move the current piece down, check if the game is over
-		else {
-			if (isGameOver()) {
-				isOver = true;
-				stop();
-			}
-			
-			// If the game is not over, update the piece's Y coordinate once
-			// more and add it to the board.
-			else {
-				currentPiece.setY(currentPiece.getY() + 1);
-				currentPiece.setFalling(false);
-				addPiece(currentPiece);
-				deletePossibleLines();
-				currentPiece = nextPiece;
-				nextPiece = generatePiece();
-			}
+	public void redo() {
+		if (canTimeTravel() && timeline.redo()) resume();
+	}
+	
+	/**
+	 * @return true if the player can undo or redo placements, which they can
+	 * do while playing in practice mode and after losing a practice game.
+	 */
+	private boolean canTimeTravel() {
+		return timeline != null && (isStarted || engine.isOver());
+	}
+	
+	/**
+	 * Restarts the timer, after moving through
+	 * the practice timeline, and lets the computer player move the restored
+	 * piece again if it is on.
+	 */
+	private void resume() {
+		recordedPiece = engine.getCurrentPiece();
+		gameVersion++;
+		plannedPiece = null;
+		if (!engine.isOver()) {
+			isStarted = true;
+			timer.restart();
 		}
-		
 		repaint();
 	}
+	
+	/**
+	 * Returns the component through which the board is shown. A board larger
+	 * than the default one is shown through a scroll pane of the default
+	 * board's size, which follows the current piece.
+	 * 
+	 * @return this board, or a scroll pane around it.
+	 */
+	public JComponent createView() {
+		if (VIEW_SIZE.equals(SIZE)) return this;
+		
+		JScrollPane pane = new JScrollPane(this);
+		pane.getViewport().setPreferredSize(VIEW_SIZE);
+		pane.getVerticalScrollBar().setUnitIncrement(TILE_SIZE);
+		pane.getHorizontalScrollBar().setUnitIncrement(TILE_SIZE);
+		pane.setBorder(null);
+		return pane;
+	}
+	
+	/**
+	 * @return the game engine driven by this board.
+	 */
+	public GameEngine getEngine() {
+		return this.engine;
+	}
 		
 	/**
-	 * Draws the board's background grid.
+	 * Draws the board's background grid, only where it needs to be redrawn.
 	 * 
 	 * @param g2d - a Graphics2D object used for drawing the grid
 	 */
 	public void drawGrid(Graphics2D g2d) {
+		Rectangle tiles = visibleTiles(g2d);
 		g2d.setColor(BACKGROUND_GRID_COLOR);
-		for (int xx = this.x; xx < this.BOARD_WIDTH + this.x; xx += TILE_SIZE) {
-			for (int yy = this.y; yy < this.BOARD_HEIGHT + this.y; yy += TILE_SIZE) {
-				g2d.drawRect(xx, yy, TILE_SIZE, TILE_SIZE);
+		for (int col = tiles.x; col < tiles.x + tiles.width; col++) {
+			for (int row = tiles.y; row < tiles.y + tiles.height; row++) {
+				g2d.drawRect(this.x + col * TILE_SIZE, this.y + row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
 			}
 		}	
 	}
 	
 	/**
-	 * Draws the board grid, as well as the current piece and all the blocks
-	 * stored in the boardTiles array.
+	 * Finds the tiles of the grid that overlap the clip of a Graphics object,
+	 * so that drawing a huge board only costs the part that is redrawn. A
+	 * Graphics object without a clip covers the whole board.
+	 * 
+	 * @param g - the Graphics object being drawn into
+	 * @return the first column and row, and the number of columns and rows,
+	 * of the tiles to draw.
+	 */
+	private Rectangle visibleTiles(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) return new Rectangle(0, 0, COLUMNS, ROWS);
+		
+		int firstCol = Math.max(0, (clip.x - this.x) / TILE_SIZE);
+		int firstRow = Math.max(0, (clip.y - this.y) / TILE_SIZE);
+		int lastCol = Math.min(COLUMNS - 1, (clip.x + clip.width - this.x) / TILE_SIZE);
+		int lastRow = Math.min(ROWS - 1, (clip.y + clip.height - this.y) / TILE_SIZE);
+		return new Rectangle(firstCol, firstRow, lastCol - firstCol + 1, lastRow - firstRow + 1);
+	}
+	
+	/**
+	 * Draws the board grid, as well as the current piece, its ghost piece and
+	 * all the blocks stored in the board. The ghost piece is drawn where the
+	 * current piece will land, using the landing row cached by the engine.
 	 * 
 	 * @param g - a Graphics object which will be casted to a Graphics2D object
 	 * used to draw graphics onto the screen.
@@ -505,28 +463,49 @@ public class Board extends JPanel {
 		super.paintComponent(g);
 		Graphics2D g2d = (Graphics2D)g;
 		drawGrid(g2d);
-		currentPiece.draw(g2d);
-		/* Iterate through every cell in the boardTiles array and draw the
-		 * block if the cell is filled. The boardTiles array contains the
-		 * sprite ID which is used to determine the image to be drawn. */
-		for (int row = 0; row < boardTiles.length; row++) {
-			for (int col = 0; col < boardTiles[row].length; col++) {
-				if (boardTiles[row][col] > 0) {
-					g2d.drawImage(Piece.getBlockSprites().getSprites()[boardTiles[row][col] - 1], (row * TILE_SIZE), (col * TILE_SIZE), TILE_SIZE, TILE_SIZE, null);
+		/* While blocks fall in a cascade, the current piece has already been
+		 * added to the board, and falls with the other blocks. */
+		if (!engine.isCascading()) {
+			if (!engine.isOver()) {
+				Composite composite = g2d.getComposite();
+				g2d.setComposite(GHOST_PIECE_COMPOSITE);
+				engine.getCurrentPiece().draw(g2d, engine.getLandingRow());
+				g2d.setComposite(composite);
+			}
+			engine.getCurrentPiece().draw(g2d);
+		}
+		/* Iterate through every non-empty row of the bitboard that is being
+		 * redrawn and draw the blocks that are filled. The color plane
+		 * contains the sprite ID which is used to determine the image to be
+		 * drawn. */
+		Playfield playfield = engine.getPlayfield();
+		BufferedImage[] blockSprites = Tetrominos.getInstance().getSprites();
+		Rectangle tiles = visibleTiles(g);
+		for (int row = tiles.y; row < tiles.y + tiles.height; row++) {
+			if (playfield.isRowEmpty(row)) continue;
+			for (int col = tiles.x; col < tiles.x + tiles.width; col++) {
+				int spriteID = playfield.getTileColor(col, row);
+				if (spriteID > 0) {
+					g2d.drawImage(blockSprites[spriteID - 1], (col * TILE_SIZE), (row * TILE_SIZE), TILE_SIZE, TILE_SIZE, null);
 				}
 			}
 		}
 		
-		// Game info text (sorry for the magic numbers)
-		if (isOver) {
+		// Game info text, in the middle of the visible part of the board
+		// (sorry for the magic numbers)
+		Rectangle view = getVisibleRect();
+		if (view.isEmpty()) view = new Rectangle(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+		int centerX = view.x + view.width / 2;
+		int centerY = view.y + view.height / 2;
+		if (engine.isOver()) {
 			g.setColor(Color.RED);
 			g.setFont(GAME_INFO_FONT);
-			g.drawString("GAME OVER!", BOARD_WIDTH / 2 - 55, BOARD_HEIGHT / 2 - 5);
+			g.drawString("GAME OVER!", centerX - 55, centerY - 5);
 		}
 		else if (isPaused) {
 			g.setColor(Color.WHITE);
 			g.setFont(GAME_INFO_FONT);
-			g.drawString("PAUSED", BOARD_WIDTH / 2 - 40, BOARD_HEIGHT / 2 - 5);
+			g.drawString("PAUSED", centerX - 40, centerY - 5);
 		}
 	}
 }
@@ -169,6 +169,36 @@ public class GameMain extends JPanel {
 		gbc.gridy = 1;
 		add(hardButt, gbc);
 		
+		// Practice mode button, classic rules with undo and redo
+		FancyJButton practiceButt = new FancyJButton("Practice Mode");
+		
+		practiceButt.addActionListener(new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent ev) {
+				sceneManager.show(scenes, "Tetris");
+				TETRIS.gameMode = "Practice";
+				TETRIS.start();
+			}
+		});
+		
+		gbc.gridy = 2;
+		add(practiceButt, gbc);
+		
+		// Cascade mode button, where blocks fall after every line clear
+		FancyJButton cascadeButt = new FancyJButton("Cascade Mode");
+		
+		cascadeButt.addActionListener(new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent ev) {
+				sceneManager.show(scenes, "Tetris");
+				TETRIS.gameMode = "Cascade";
+				TETRIS.start();
+			}
+		});
+		
+		gbc.gridy = 3;
+		add(cascadeButt, gbc);
+		
 		// Highscores button
 		FancyJButton highButt = new FancyJButton("Highscores");
 		
@@ -182,7 +212,7 @@ public class GameMain extends JPanel {
 		});
 		
 		// Adding to panel
-		gbc.gridy = 2;
+		gbc.gridy = 4;
 		add(highButt, gbc);
 		
 		// Last button, quit game
@@ -197,7 +227,7 @@ public class GameMain extends JPanel {
 		});
 		
 		// You know the drill
-		gbc.gridy = 3;
+		gbc.gridy = 5;
 		add(quitButt, gbc);
 	}
 	
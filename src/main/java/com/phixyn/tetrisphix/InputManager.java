@@ -12,6 +12,7 @@ import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
+import com.phixyn.tetrisphix.engine.GameEngine;
 import com.phixyn.tetrisphix.piece.Piece;
 
 /**
@@ -24,6 +25,7 @@ import com.phixyn.tetrisphix.piece.Piece;
  * @author Alpeche Pancha
  * @version 1.0.5, 19 December 2014
  * @see Board
+ * @see GameEngine
  * @see Piece
  */
 public class InputManager extends AbstractAction implements ActionListener, MouseListener {
@@ -60,6 +62,9 @@ public class InputManager extends AbstractAction implements ActionListener, Mous
 		addAction("R", "ROTATE");
 		addAction("P", "PAUSE");
 		addAction("Q", "QUIT");
+		addAction("C", "COMPUTER");
+		addAction("U", "UNDO");
+		addAction("I", "REDO");
 	}
 	
 	/**
@@ -79,62 +84,54 @@ public class InputManager extends AbstractAction implements ActionListener, Mous
 	 * Overrides ActionListener's actionPerformed method. 
 	 * <p>
 	 * Checks for key presses and performs the appropriate actions if the
-	 * player presses a key that corresponds to an action. Different
-	 * methods from the Piece class are used to get information about the
-	 * game's current piece. Additionally, the Board's canMove method is
-	 * used to check for collision.
+	 * player presses a key that corresponds to an action. The game engine's
+	 * movement methods are used to move the game's current piece, and they
+	 * check for collision before doing so.
 	 * 
 	 * @param ev - an ActionEvent object containing information about the
 	 * keyboard event that has occurred.
 	 */
 	@Override
 	public void actionPerformed(ActionEvent ev) {
-		// The current piece falling down in the board
-		Piece currentPiece = board.currentPiece;
+		// The game engine and the current piece falling down in the board
+		GameEngine engine = board.getEngine();
+		Piece currentPiece = engine.getCurrentPiece();
 		String key = ev.getActionCommand();
 		
-		/* Tetromino movement - we use the board's canMove method in order to
-		 * check if the current piece can move. We also need to check the
-		 * board's state in order to ensure that pieces don't move when the
-		 * game is paused.
+		/* Tetromino movement - the engine checks if the current piece can
+		 * move before moving it. We also need to check the board's state in
+		 * order to ensure that pieces don't move when the game is paused.
 		 */ 
-		if (key.equals("a") &&
-				board.isStarted &&
-				!board.isPaused &&
-				board.canMove(currentPiece.getRotation(), currentPiece.getX() - 1, currentPiece.getY())) {
-			currentPiece.setX(currentPiece.getX() - 1);
+		if (key.equals("a") && board.isStarted && !board.isPaused) {
+			engine.moveLeft();
 		}
 		
-		if (key.equals("d") &&
-				board.isStarted &&
-				!board.isPaused &&
-				board.canMove(currentPiece.getRotation(), currentPiece.getX() + 1, currentPiece.getY())) {
-			currentPiece.setX(currentPiece.getX() + 1);
+		if (key.equals("d") && board.isStarted && !board.isPaused) {
+			engine.moveRight();
 		}
 		
-		if (key.equals("s") &&
-				board.isStarted &&
-				!board.isPaused &&
-				board.canMove(currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY() + 1)) {
-			while (board.canMove(currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY() + 1)) {
-				currentPiece.setY(currentPiece.getY() + 1);
-			}
+		if (key.equals("s") && board.isStarted && !board.isPaused) {
+			engine.hardDrop();
+		}
+		
+		/* Rotate the piece. The engine cycles through every possible rotation
+		 * of the piece and only rotates it if the rotation is possible. */
+		if (key.equals("r") && board.isStarted && !board.isPaused) {
+			engine.rotate();
+		}
+		
+		// Let the computer play, or take back control
+		if (key.equals("c") && board.isStarted && !board.isPaused) {
+			board.toggleComputerPlayer();
+		}
+		
+		// Undo or redo the last piece placement, in practice mode only
+		if (key.equals("u") && !board.isPaused) {
+			board.undo();
 		}
 		
-		/* Rotate the piece. This time we pass a rotation to the board's
-		 * canMove method in order to check if the rotation is possible.
-		 * The way we calculate the next rotation is by performing a modulus
-		 * operation between rotation + 1 and the piece's possible rotations.
-		 * Because this will always be a value between 0 and the piece's
-		 * possible rotations, we will always cycle through every possible
-		 * rotation (i.e. when a L-Piece rotation reaches 4, its next rotation
-		 * will be 0). */
-		if (key.equals("r") &&
-				board.isStarted &&
-				!board.isPaused &&
-				currentPiece.getPossibleRotations() > 0 &&
-				board.canMove((currentPiece.getRotation() + 1) % currentPiece.getPossibleRotations(), currentPiece.getX(), currentPiece.getY())) {
-			currentPiece.setRotation((currentPiece.getRotation() + 1) % currentPiece.getPossibleRotations());
+		if (key.equals("i") && !board.isPaused) {
+			board.redo();
 		}
 		
 		// Pause or unpause the game
@@ -179,40 +176,30 @@ public class InputManager extends AbstractAction implements ActionListener, Mous
 	 * clicking moves the piece right, and middle button click rotates the
 	 * piece.
 	 * <p>
-	 * Different methods from the Piece class are used to get information about the
-	 * game's current piece. Additionally, the Board's canMove method is
-	 * used to check for collision.
+	 * The game engine's movement methods are used to move the game's current
+	 * piece, and they check for collision before doing so.
 	 * 
 	 * @param ev - a MouseEvent object containing information about the mouse
 	 * event that has occurred.
 	 */
 	@Override
 	public void mouseClicked(MouseEvent ev) {
-		// The current piece falling down in the board
-		Piece currentPiece = board.currentPiece;
+		// The game engine moving the current piece
+		GameEngine engine = board.getEngine();
 		
 		// Move left
-		if (ev.getButton() == MouseEvent.BUTTON1 &&
-			!board.isPaused &&
-			board.canMove(currentPiece.getRotation(), currentPiece.getX() - 1, currentPiece.getY())) {
-			currentPiece.setX(currentPiece.getX() - 1);
+		if (ev.getButton() == MouseEvent.BUTTON1 && !board.isPaused) {
+			engine.moveLeft();
 		}
 
 		// Rotate piece
-		if (ev.getButton() == MouseEvent.BUTTON2 &&
-			board.isStarted &&
-			!board.isPaused &&
-			currentPiece.getPossibleRotations() > 0 &&
-			board.canMove((currentPiece.getRotation() + 1) % currentPiece.getPossibleRotations(), currentPiece.getX(), currentPiece.getY())) {
-			currentPiece.setRotation((currentPiece.getRotation() + 1) % currentPiece.getPossibleRotations());
+		if (ev.getButton() == MouseEvent.BUTTON2 && board.isStarted && !board.isPaused) {
+			engine.rotate();
 		}
 		
 		// Move right
-		if (ev.getButton() == MouseEvent.BUTTON3 &&
-			board.isStarted &&
-			!board.isPaused &&
-			board.canMove(currentPiece.getRotation(), currentPiece.getX() + 1, currentPiece.getY())) {
-			currentPiece.setX(currentPiece.getX() + 1);
+		if (ev.getButton() == MouseEvent.BUTTON3 && board.isStarted && !board.isPaused) {
+			engine.moveRight();
 		}
 	}
 
@@ -1,5 +1,6 @@
 package com.phixyn.tetrisphix;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
@@ -12,15 +13,16 @@ import java.awt.image.BufferedImage;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 
+import com.phixyn.tetrisphix.engine.GameEngine;
 import com.phixyn.tetrisphix.gfx.EasyJLabel;
 import com.phixyn.tetrisphix.piece.Piece;
 
 /**
  * JPanel subclass for the right side panel of the Tetris game. Displays the
- * next piece to be spawned in the game and the player's score.
+ * next pieces to be spawned in the game and the player's score.
  * <p>
- * Provides methods to set the next piece and score label as well as an inner
- * class for the "next" panel JPanel.
+ * Provides methods to set the upcoming pieces and score label as well as an
+ * inner class for the "next" panel JPanel.
  * 
  * @author 	Alpeche Pancha
  * @version 1.0.5, 19 December 2014
@@ -37,23 +39,39 @@ public class RightPanel extends JPanel {
 	// Size for this panel
 	private final Dimension SIZE = new Dimension(144, 480);
 	
-	// Sizes of the sub panels
-	private final Dimension NEXT_PANEL_SIZE = new Dimension(144, 103);
+	// Sizes of the sub panels. The "next" panel grows by one slot for every
+	// upcoming piece shown after the next one.
+	private final int NEXT_PANEL_WIDTH = 144;
+	private final int NEXT_PANEL_HEIGHT = 103;
+	private final int PREVIEW_SLOT_HEIGHT = 48;
+	private final Dimension NEXT_PANEL_SIZE;
 	private final Dimension SCORE_PANEL_SIZE = new Dimension(144, 60);
 	
+	// Size of the tiles of the next piece, and of the pieces after it
+	private final int NEXT_TILE_SIZE = 24;
+	private final int PREVIEW_TILE_SIZE = 12;
+	
 	// Color objects for the panels
 	private final Color PANEL_BG_COLOR = Color.BLACK;
 	private final Color PANEL_BORDER_COLOR = new Color(96, 164, 184);
 	
 	// Declare and initialize the panels and label
-	private NextPanel nextPanel = new NextPanel();
+	private NextPanel nextPanel;
 	private JPanel scorePanel = new JPanel();
 	private EasyJLabel scoreLabel = new EasyJLabel("0");
 	
-	// Piece object for the nextPiece in the game
-	private Piece nextPiece;
+	// Piece objects for the upcoming pieces in the game, next piece first
+	private final Piece[] previewPieces;
 	
-	public RightPanel() {
+	/**
+	 * @param previewSize - the number of upcoming pieces to show
+	 */
+	public RightPanel(int previewSize) {
+		this.previewPieces = new Piece[previewSize];
+		this.NEXT_PANEL_SIZE = new Dimension(NEXT_PANEL_WIDTH,
+				NEXT_PANEL_HEIGHT + (previewSize - 1) * PREVIEW_SLOT_HEIGHT);
+		this.nextPanel = new NextPanel();
+		
 		// Setting up this JPanel
 		this.setBackground(new Color(0, 0, 0, 0));
 		this.setOpaque(false);
@@ -95,7 +113,7 @@ public class RightPanel extends JPanel {
 	
 	/**
 	 * Inner class for the "next" panel. Overrides the paintComponent method to
-	 * draw the next piece.
+	 * draw the upcoming pieces.
 	 * 
 	 * @author Alpeche Pancha
 	 * @version 1.0.0, 08 December 2014
@@ -111,8 +129,9 @@ public class RightPanel extends JPanel {
 		 * Constructor method for the panel. Sets up the panel.
 		 */
 		public NextPanel() {
-			// Setting up "Next" JPanel
-			this.setLayout(new GridLayout(3,1));
+			// Setting up "Next" JPanel. The title keeps the height it has in
+			// a panel showing a single piece.
+			this.setLayout(new BorderLayout());
 			this.setMinimumSize(NEXT_PANEL_SIZE);
 			this.setMaximumSize(NEXT_PANEL_SIZE);
 			this.setSize(NEXT_PANEL_SIZE);
@@ -120,12 +139,13 @@ public class RightPanel extends JPanel {
 			this.setBackground(PANEL_BG_COLOR);
 			this.setBorder(BorderFactory.createLineBorder(PANEL_BORDER_COLOR));
 			EasyJLabel nextTitleLabel = new EasyJLabel("Next");
-			this.add(nextTitleLabel);
+			nextTitleLabel.setPreferredSize(new Dimension(NEXT_PANEL_WIDTH, NEXT_PANEL_HEIGHT / 3));
+			this.add(nextTitleLabel, BorderLayout.PAGE_START);
 		}
 		
 		/**
-		 * Draws the next piece onto the panel, by iterating through the
-		 * pieceTiles array and drawing each square image appropriately.
+		 * Draws the upcoming pieces onto the panel: the next piece at full
+		 * size, and the pieces after it at half size, one below the other.
 		 * 
 		 * @param g - Graphics object used to draw images to the screen
 		 * @see Piece
@@ -133,11 +153,35 @@ public class RightPanel extends JPanel {
 		public void paintComponent(Graphics g) {
 			super.paintComponent(g);
 			Graphics2D g2d = (Graphics2D)g;
-			int[][][] pieceTiles = nextPiece.getPieceTiles();
-			int rotation = nextPiece.getRotation();
-			BufferedImage pieceSprite = nextPiece.getPieceSprite();
-			int x = 12, y = 12;
-			final int TILE_SIZE = 24;
+			for (int i = 0; i < previewPieces.length; i++) {
+				if (previewPieces[i] == null) continue;
+				if (i == 0) {
+					drawPiece(g2d, previewPieces[i], 12, 12, NEXT_TILE_SIZE);
+				}
+				else {
+					drawPiece(g2d, previewPieces[i], 12,
+							NEXT_PANEL_HEIGHT - PREVIEW_TILE_SIZE + (i - 1) * PREVIEW_SLOT_HEIGHT, PREVIEW_TILE_SIZE);
+				}
+			}
+		}
+		
+		/**
+		 * Draws a piece by iterating through its pieceTiles array and drawing
+		 * each square image appropriately.
+		 * 
+		 * @param g2d - 		Graphics2D object used to draw the piece
+		 * @param piece - 		the piece to draw
+		 * @param x - 			X coordinate of the piece's matrix
+		 * @param y - 			Y coordinate of the piece's matrix
+		 * @param tileSize - 	size of the tiles of a Tetromino
+		 */
+		private void drawPiece(Graphics2D g2d, Piece piece, int x, int y, int tileSize) {
+			int[][][] pieceTiles = piece.getPieceTiles();
+			int rotation = piece.getRotation();
+			BufferedImage pieceSprite = piece.getPieceSprite();
+			// Pieces larger than the Tetrominos are drawn with smaller tiles,
+			// so that they fit in the same space
+			final int TILE_SIZE = tileSize * 4 / Math.max(4, pieceTiles[rotation].length);
 			
 			for (int row = 0; row < pieceTiles[rotation].length; row++) {
 				for (int col = 0; col < pieceTiles[rotation][row].length; col++) {
@@ -153,12 +197,14 @@ public class RightPanel extends JPanel {
 	}
 	
 	/**
-	 * Set the next piece object.
+	 * Set the upcoming piece objects from the game's queue.
 	 * 
-	 * @param piece - the Piece object
+	 * @param engine - the game engine
 	 */
-	public void setNextPiece(Piece piece) {
-		this.nextPiece = piece;
+	public void setPreview(GameEngine engine) {
+		for (int i = 0; i < previewPieces.length; i++) {
+			this.previewPieces[i] = engine.getPreviewPiece(i);
+		}
 	}
 	
 	/**
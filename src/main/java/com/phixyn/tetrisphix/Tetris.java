@@ -18,6 +18,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.Timer;
 
+import com.phixyn.tetrisphix.engine.GameEngine;
 import com.phixyn.tetrisphix.gfx.BufferedImageLoader;
 
 /**
@@ -88,9 +89,9 @@ public class Tetris extends JPanel {
 		// Create instances of the game panels
 		this.leftPanel = new LeftPanel();
 		this.board = new Board();
-		this.rightPanel = new RightPanel();
-		// Set initial next piece so that it won't be null
-		this.rightPanel.setNextPiece(this.board.nextPiece);
+		this.rightPanel = new RightPanel(this.board.getEngine().getPreviewSize());
+		// Set initial upcoming pieces so that they won't be null
+		this.rightPanel.setPreview(this.board.getEngine());
 		
 		// Set constraints for the panels and add them to this JPanel
 		gbc.fill = GridBagConstraints.BOTH;
@@ -113,7 +114,7 @@ public class Tetris extends JPanel {
 		gbc.weighty = 0.5;
 		gbc.anchor = GridBagConstraints.PAGE_START;
 		// gbc.ipady = 10; // TODO new
-		add(this.board, gbc);
+		add(this.board.createView(), gbc);
 		
 		gbc.fill = GridBagConstraints.BOTH;
 		gbc.gridx = 3;
@@ -195,7 +196,7 @@ public class Tetris extends JPanel {
 		// Start audio
 		// SoundTest mySoundTest = new SoundTest();
 		leftPanel.setModeLabel(this.gameMode);
-		board.gameMode = this.gameMode;
+		board.getEngine().setGameMode(this.gameMode);
 		board.start();
 	}
 
@@ -217,7 +218,7 @@ public class Tetris extends JPanel {
 	private void showHighScoreDialog() {
 		// Show highscore dialog
 		Object text = "Score: " +
-				board.playerScore + "\nEnter your name:";
+				board.getEngine().getPlayerScore() + "\nEnter your name:";
 		Object initVal = "Player";
 		boolean validName = false;
 		
@@ -237,7 +238,7 @@ public class Tetris extends JPanel {
 			}
 			else {
 				validName = true;
-				scoreManager.addScore(playerName.toString(), board.playerScore, board.gameLevel, gameMode);
+				scoreManager.addScore(playerName.toString(), board.getEngine().getPlayerScore(), board.getEngine().getGameLevel(), gameMode);
 				HighScorePanel.updateScores();
 			}
 		}
@@ -300,30 +301,32 @@ public class Tetris extends JPanel {
 	 */
 	public void update() {
 		if (gameState.equals("PLAYING")) {
-			leftPanel.setLevelLabel(board.gameLevel);
-			leftPanel.setLinesLabel(board.linesClear);
+			GameEngine engine = board.getEngine();
+			leftPanel.setLevelLabel(engine.getGameLevel());
+			leftPanel.setLinesLabel(engine.getLinesClear());
 			leftPanel.repaint();
 			
-			rightPanel.setScoreLabel(board.playerScore);
-			rightPanel.setNextPiece(board.nextPiece);
+			rightPanel.setScoreLabel(engine.getPlayerScore());
+			rightPanel.setPreview(engine);
 			rightPanel.repaint();
 			
 			// Update information about the current level
 			// If the game level has changed, update the background image
-			if (board.gameLevel != this.gameLevel) {
-				this.gameLevel = board.gameLevel;
+			if (engine.getGameLevel() != this.gameLevel) {
+				this.gameLevel = engine.getGameLevel();
 				/* Make sure we don't try to access anything with index greater
 				 * than 9. Even if the player makes it to level 11 and above,
 				 * we only have 10 images, so we'll stick to that. I made the
 				 * last image pretty enough to last for a while. */ 
-				if (board.gameLevel <= 10) {
-					bgImage = bgImageArray[board.gameLevel - 1];
+				if (engine.getGameLevel() <= 10) {
+					bgImage = bgImageArray[engine.getGameLevel() - 1];
 					repaint();
 				}
 			}			
 			
-			// Game over handling
-			if (board.isOver) {
+			// Game over handling. In practice mode, the player can undo
+			// their way out of a game over instead.
+			if (engine.isOver() && !gameMode.equals("Practice")) {
 				gameState = "INITIALIZED";
 				showHighScoreDialog();
 				showGameOverDialog();
@@ -0,0 +1,354 @@
+package com.phixyn.tetrisphix.ai;
+
+import com.phixyn.tetrisphix.engine.GameEngine;
+import com.phixyn.tetrisphix.engine.MoveGenerator;
+import com.phixyn.tetrisphix.engine.PieceState;
+import com.phixyn.tetrisphix.engine.PlacementList;
+import com.phixyn.tetrisphix.engine.Playfield;
+import com.phixyn.tetrisphix.engine.Zobrist;
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Computer player that plans several pieces ahead with a beam search. Every
+ * placement of the current piece is scored by an Evaluator, and only the best
+ * boards, up to the beam width, are expanded with every placement of the next
+ * piece, and so on for every piece known in advance. The current piece is
+ * then moved to the first placement of the best plan.
+ * <p>
+ * All the boards of the search are allocated once, on the first move or when
+ * the size of the board changes: two beams of playfields, one for the boards
+ * being expanded and one for their children, and a scratch playfield where
+ * each candidate is scored. The queue of the pieces searched is only
+ * allocated again when the size of the preview changes.
+ * The candidates are kept in a bounded heap and only the survivors are copied
+ * into the next beam, so the memory used and the time taken by a move only
+ * depend on the beam width and on the number of pieces searched.
+ * <p>
+ * Different placements often lead to the same board. Every scored board is
+ * stored in a transposition table, keyed by its Zobrist hash and the type of
+ * the piece that will be placed on it, so that a board already scored at the
+ * same level of the search is skipped, and a board scored before is not
+ * evaluated again.
+ * <p>
+ * A player is not thread safe; each game needs its own player.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Evaluator
+ * @see		MoveGenerator
+ */
+public class BeamSearchPlayer implements Player {
+
+	// Beam width used by the default constructor
+	public static final int DEFAULT_BEAM_WIDTH = 100;
+
+	private final Evaluator evaluator;
+	private final int beamWidth;
+
+	// Boards of the beam being expanded, and of the next beam
+	private Playfield[] beam, nextBeam;
+	// Root placement and lines cleared along the plan of each board
+	private int[] beamRoot, nextRoot;
+	private int[] beamLines, nextLines;
+	private int beamSize;
+
+	/* Bounded min-heap of the best candidates of a level. A candidate is a
+	 * placement of the level's piece, stored as a packed PieceState, on one
+	 * of the boards of the beam. The weakest candidate is at the top so it
+	 * can be replaced. */
+	private final double[] heapScore;
+	private final int[] heapParent, heapState, heapLines;
+	private int heapSize;
+
+	// Board on which each candidate is simulated and scored
+	private Playfield scratch;
+
+	// Current piece and upcoming pieces searched, reallocated only when the
+	// size of the preview changes
+	private Piece[] queue;
+
+	// Scores of the boards already seen, by hash
+	private final TranspositionTable table;
+	// Weight of the lines cleared, added to the cached board scores
+	private final double linesWeight;
+
+	// Placements of the current piece, with their paths, and of later pieces
+	private final PlacementList rootPlacements = new PlacementList();
+	private final PlacementList placements = new PlacementList();
+	private MoveGenerator moveGenerator;
+
+	/**
+	 * Creates a player with the default evaluator and beam width.
+	 */
+	public BeamSearchPlayer() {
+		this(new Evaluator(), DEFAULT_BEAM_WIDTH);
+	}
+
+	/**
+	 * @param evaluator - 	the evaluator used to score and prune the boards
+	 * @param beamWidth - 	the number of boards kept at every level of the
+	 * 						search
+	 */
+	public BeamSearchPlayer(Evaluator evaluator, int beamWidth) {
+		this(evaluator, beamWidth, new TranspositionTable());
+	}
+
+	/**
+	 * @param evaluator - 	the evaluator used to score and prune the boards
+	 * @param beamWidth - 	the number of boards kept at every level of the
+	 * 						search
+	 * @param table - 		the table caching the scores of the boards
+	 */
+	public BeamSearchPlayer(Evaluator evaluator, int beamWidth, TranspositionTable table) {
+		if (beamWidth < 1) {
+			throw new IllegalArgumentException("Beam width must be at least 1, got " + beamWidth);
+		}
+		this.evaluator = evaluator;
+		this.beamWidth = beamWidth;
+		this.table = table;
+		this.linesWeight = evaluator.getWeights()[Evaluator.LINES];
+
+		this.beam = new Playfield[beamWidth];
+		this.nextBeam = new Playfield[beamWidth];
+		this.beamRoot = new int[beamWidth];
+		this.nextRoot = new int[beamWidth];
+		this.beamLines = new int[beamWidth];
+		this.nextLines = new int[beamWidth];
+
+		this.heapScore = new double[beamWidth];
+		this.heapParent = new int[beamWidth];
+		this.heapState = new int[beamWidth];
+		this.heapLines = new int[beamWidth];
+	}
+
+	@Override
+	public boolean play(GameEngine engine) {
+		int best = findBestPlacement(engine);
+		if (best < 0) return false;
+
+		for (int i = 0; i < rootPlacements.getPathLength(best); i++) {
+			engine.applyInput(rootPlacements.getInput(best, i));
+		}
+		return true;
+	}
+
+	/**
+	 * Searches the placements of every piece known in advance and returns
+	 * the placement of the current piece that starts the best plan. The
+	 * placements of the current piece, with their paths, are left in the
+	 * player's root placement list.
+	 *
+	 * @param engine - 	the game
+	 * @return			the index of the best placement of the current piece,
+	 * 					or -1 if it has nowhere to go.
+	 */
+	public int findBestPlacement(GameEngine engine) {
+		if (engine.isOver() || engine.generatePlacements(rootPlacements) == 0) return -1;
+
+		Playfield field = engine.getPlayfield();
+		if (scratch == null || scratch.COLUMNS != field.COLUMNS || scratch.ROWS != field.ROWS) {
+			allocateBoards(field.COLUMNS, field.ROWS);
+		}
+		boolean sameColorOnly = engine.getGameMode().equals("Hardcore");
+		boolean cascade = engine.getGameMode().equals("Cascade");
+		if (queue == null || queue.length != 1 + engine.getPreviewSize()) {
+			queue = new Piece[1 + engine.getPreviewSize()];
+		}
+		queue[0] = engine.getCurrentPiece();
+		for (int i = 1; i < queue.length; i++) {
+			queue[i] = engine.getPreviewPiece(i - 1);
+		}
+		table.newSearch();
+
+		// First level: every placement of the current piece on the board
+		Piece current = queue[0];
+		PieceShape shape = current.getShape();
+		heapSize = 0;
+		for (int i = 0; i < rootPlacements.size(); i++) {
+			int x = rootPlacements.getX(i), y = rootPlacements.getY(i), rot = rootPlacements.getRotation(i);
+			scratch.copyFrom(field);
+			int lines = scratch.lockAndClear(shape, rot, x, y, current.getSpriteID(), sameColorOnly, cascade);
+			if (lines < 0) continue;
+			double score = score(scratch, queue, 0, lines, sameColorOnly);
+			if (!Double.isNaN(score)) offer(score, i, PieceState.pack(current.getType(), rot, x, y), lines);
+		}
+		if (heapSize == 0) return 0;
+		if (queue.length == 1) return heapParent[bestCandidate()];
+		int best = promote(null, field, current, sameColorOnly, cascade);
+
+		// Later levels: every placement of the next piece on every board of
+		// the beam, keeping the best boards
+		for (int depth = 1; depth < queue.length; depth++) {
+			Piece piece = queue[depth];
+			shape = piece.getShape();
+			heapSize = 0;
+			for (int k = 0; k < beamSize; k++) {
+				moveGenerator.generate(beam[k], shape, piece.getRotation(), piece.getX(), piece.getY(), placements);
+				for (int i = 0; i < placements.size(); i++) {
+					int x = placements.getX(i), y = placements.getY(i), rot = placements.getRotation(i);
+					scratch.copyFrom(beam[k]);
+					int lines = scratch.lockAndClear(shape, rot, x, y, piece.getSpriteID(), sameColorOnly, cascade);
+					if (lines < 0) continue;
+					lines += beamLines[k];
+					double score = score(scratch, queue, depth, lines, sameColorOnly);
+					if (!Double.isNaN(score)) offer(score, k, PieceState.pack(piece.getType(), rot, x, y), lines);
+				}
+			}
+
+			// Every plan tops out, keep the best plan of the previous level
+			if (heapSize == 0) break;
+			// The boards of the last level are only scored, never expanded
+			if (depth == queue.length - 1) {
+				best = beamRoot[heapParent[bestCandidate()]];
+				break;
+			}
+			best = promote(beamRoot, null, piece, sameColorOnly, cascade);
+		}
+		return best;
+	}
+
+	/**
+	 * Allocates every board of the search, and the move generator, for
+	 * boards of the given size.
+	 */
+	private void allocateBoards(int columns, int rows) {
+		for (int i = 0; i < beamWidth; i++) {
+			beam[i] = new Playfield(columns, rows);
+			nextBeam[i] = new Playfield(columns, rows);
+		}
+		scratch = new Playfield(columns, rows);
+		moveGenerator = new MoveGenerator(columns, rows);
+	}
+
+	/**
+	 * Scores a candidate board, using the transposition table to skip the
+	 * boards already reached at this level and to avoid evaluating the
+	 * boards scored before.
+	 *
+	 * @param field - 	the candidate board
+	 * @param queue - 	the pieces searched
+	 * @param depth - 	the level of the piece placed on the board
+	 * @param lines - 	the lines cleared along the plan
+	 * @param sameColorOnly - 	whether rows must be of a single color to be
+	 * 							cleared, in which case the colors of the rows
+	 * 							are part of the key of the board
+	 * @return			the score of the board, or NaN if it was already
+	 * 					reached at this level.
+	 */
+	private double score(Playfield field, Piece[] queue, int depth, int lines, boolean sameColorOnly) {
+		int remaining = queue.length - 1 - depth;
+		long key = field.getHash();
+		// In hardcore mode, boards with the same blocks but different row
+		// colors clear different lines, so they are different boards
+		if (sameColorOnly) key ^= field.getColorHash();
+		if (remaining > 0) key ^= Zobrist.getPieceKey(queue[depth + 1].getType());
+
+		double boardScore;
+		int slot = table.probe(key);
+		if (slot >= 0) {
+			if (table.isCurrent(slot) && table.getDepth(slot) == remaining) return Double.NaN;
+			boardScore = table.getScore(slot);
+		}
+		else {
+			boardScore = evaluator.evaluateBoard(field);
+		}
+		table.store(key, remaining, boardScore);
+		return boardScore + linesWeight * lines;
+	}
+
+	/**
+	 * Adds a candidate to the heap if it is better than the weakest one, or
+	 * if the heap is not full yet.
+	 */
+	private void offer(double score, int parent, int state, int lines) {
+		int i;
+		if (heapSize < beamWidth) {
+			// Sift the new candidate up from the bottom of the heap
+			i = heapSize++;
+			while (i > 0) {
+				int up = (i - 1) >> 1;
+				if (heapScore[up] <= score) break;
+				moveHeapEntry(up, i);
+				i = up;
+			}
+		}
+		else {
+			if (score <= heapScore[0]) return;
+			// Replace the weakest candidate and sift it down
+			i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= heapSize) break;
+				if (child + 1 < heapSize && heapScore[child + 1] < heapScore[child]) child++;
+				if (heapScore[child] >= score) break;
+				moveHeapEntry(child, i);
+				i = child;
+			}
+		}
+		heapScore[i] = score;
+		heapParent[i] = parent;
+		heapState[i] = state;
+		heapLines[i] = lines;
+	}
+
+	private void moveHeapEntry(int from, int to) {
+		heapScore[to] = heapScore[from];
+		heapParent[to] = heapParent[from];
+		heapState[to] = heapState[from];
+		heapLines[to] = heapLines[from];
+	}
+
+	/**
+	 * @return the index in the heap of the best candidate.
+	 */
+	private int bestCandidate() {
+		int best = 0;
+		for (int i = 1; i < heapSize; i++) {
+			if (heapScore[i] > heapScore[best]) best = i;
+		}
+		return best;
+	}
+
+	/**
+	 * Replays the surviving candidates of a level into the next beam and
+	 * makes it the current beam.
+	 *
+	 * @param roots - 	the root placement of each parent board, or null on
+	 * 					the first level, where the parent is the root placement
+	 * @param root - 	the board of the game on the first level, or null
+	 * @return			the root placement of the best candidate.
+	 */
+	private int promote(int[] roots, Playfield root, Piece piece, boolean sameColorOnly, boolean cascade) {
+		int best = bestCandidate();
+		for (int i = 0; i < heapSize; i++) {
+			int parent = heapParent[i];
+			nextBeam[i].copyFrom(root != null ? root : beam[parent]);
+			PieceState.lock(nextBeam[i], heapState[i], piece.getSpriteID(), sameColorOnly, cascade);
+			nextRoot[i] = roots != null ? roots[parent] : parent;
+			nextLines[i] = heapLines[i];
+		}
+		int bestRoot = nextRoot[best];
+
+		Playfield[] fields = beam;
+		beam = nextBeam;
+		nextBeam = fields;
+		int[] tmp = beamRoot;
+		beamRoot = nextRoot;
+		nextRoot = tmp;
+		tmp = beamLines;
+		beamLines = nextLines;
+		nextLines = tmp;
+		beamSize = heapSize;
+		return bestRoot;
+	}
+
+	// Getter methods
+	public int getBeamWidth() {
+		return beamWidth;
+	}
+
+	public PlacementList getRootPlacements() {
+		return rootPlacements;
+	}
+}
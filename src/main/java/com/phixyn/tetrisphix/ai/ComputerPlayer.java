@@ -0,0 +1,235 @@
+package com.phixyn.tetrisphix.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.phixyn.tetrisphix.engine.GameEngine;
+import com.phixyn.tetrisphix.engine.MoveGenerator;
+import com.phixyn.tetrisphix.engine.PlacementList;
+import com.phixyn.tetrisphix.engine.Playfield;
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Computer player that picks the best placement for the current piece and
+ * moves the piece there through the game engine, using the same moves as a
+ * human player. Every placement of the current piece is scored by an
+ * Evaluator, optionally looking ahead at every placement of the next piece.
+ * <p>
+ * The placements of the current piece are split between the threads of a
+ * ForkJoinPool, so that the search scales with the number of cores. Each
+ * thread simulates the placements on its own playfields, which are reused
+ * from one search to the next.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Evaluator
+ * @see		MoveGenerator
+ */
+public class ComputerPlayer implements Player {
+
+	// Number of placements below which a task is not split any further
+	private static final int SPLIT_THRESHOLD = 2;
+
+	private final Evaluator evaluator;
+	private final ForkJoinPool pool;
+
+	// Whether to look ahead at the placements of the next piece
+	private final boolean lookahead;
+
+	// Placements of the current piece, generated on the calling thread
+	private final PlacementList placements = new PlacementList();
+
+	// Playfields and buffers of each thread of the pool
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>();
+
+	/**
+	 * Creates a player with the default evaluator, looking ahead at the next
+	 * piece and using the common ForkJoinPool.
+	 */
+	public ComputerPlayer() {
+		this(new Evaluator(), ForkJoinPool.commonPool(), true);
+	}
+
+	/**
+	 * @param evaluator - 	the evaluator used to score the placements
+	 * @param pool - 		the pool in which the placements are scored, or
+	 * 						null to score them on the calling thread, which is
+	 * 						best when many games are played in parallel
+	 * @param lookahead - 	whether to look ahead at the next piece
+	 */
+	public ComputerPlayer(Evaluator evaluator, ForkJoinPool pool, boolean lookahead) {
+		this.evaluator = evaluator;
+		this.pool = pool;
+		this.lookahead = lookahead;
+	}
+
+	/**
+	 * Finds the best placement of the current piece of a game and moves the
+	 * piece there by applying the inputs of its path. The piece is hard
+	 * dropped but not locked; it is added to the board on the next step.
+	 *
+	 * @param engine - the game to play
+	 * @return false if the current piece has nowhere to go.
+	 */
+	@Override
+	public boolean play(GameEngine engine) {
+		int best = findBestPlacement(engine, placements);
+		if (best < 0) return false;
+
+		for (int i = 0; i < placements.getPathLength(best); i++) {
+			engine.applyInput(placements.getInput(best, i));
+		}
+		return true;
+	}
+
+	/**
+	 * Generates the placements of the current piece of a game and scores
+	 * them in parallel. The game must not change until this method returns.
+	 *
+	 * @param engine - 	the game
+	 * @param out - 	the list where the placements are stored
+	 * @return			the index of the best placement in the list, or -1 if
+	 * 					there are no placements.
+	 */
+	public int findBestPlacement(GameEngine engine, PlacementList out) {
+		if (engine.isOver() || engine.generatePlacements(out) == 0) return -1;
+
+		Piece current = engine.getCurrentPiece();
+		Piece next = lookahead ? engine.getNextPiece() : null;
+		boolean sameColorOnly = engine.getGameMode().equals("Hardcore");
+		boolean cascade = engine.getGameMode().equals("Cascade");
+		PlacementTask task = new PlacementTask(engine.getPlayfield(), current, next,
+				sameColorOnly, cascade, out, 0, out.size());
+		return pool != null ? pool.invoke(task).index : task.scoreRange().index;
+	}
+
+	/**
+	 * Scores a single placement of the current piece. The placement is
+	 * simulated on the thread's own playfield, followed by the best placement
+	 * of the next piece if looking ahead.
+	 *
+	 * @return the score of the placement.
+	 */
+	private double scorePlacement(Playfield field, Piece current, Piece next,
+			boolean sameColorOnly, boolean cascade, PlacementList list, int index) {
+		Workspace ws = workspace(field);
+		ws.afterCurrent.copyFrom(field);
+		int lines = ws.afterCurrent.lockAndClear(current.getShape(), list.getRotation(index),
+				list.getX(index), list.getY(index), current.getSpriteID(), sameColorOnly, cascade);
+		if (lines < 0) return Double.NEGATIVE_INFINITY;
+		if (next == null) return evaluator.evaluate(ws.afterCurrent, lines);
+
+		PieceShape nextShape = next.getShape();
+		int count = ws.generator.generate(ws.afterCurrent, nextShape, next.getRotation(),
+				next.getX(), next.getY(), ws.nextPlacements);
+		double best = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			ws.afterNext.copyFrom(ws.afterCurrent);
+			int nextLines = ws.afterNext.lockAndClear(nextShape, ws.nextPlacements.getRotation(i),
+					ws.nextPlacements.getX(i), ws.nextPlacements.getY(i), next.getSpriteID(), sameColorOnly, cascade);
+			if (nextLines < 0) continue;
+			best = Math.max(best, evaluator.evaluate(ws.afterNext, lines + nextLines));
+		}
+		return best;
+	}
+
+	private Workspace workspace(Playfield field) {
+		Workspace ws = workspaces.get();
+		if (ws == null || ws.afterCurrent.COLUMNS != field.COLUMNS || ws.afterCurrent.ROWS != field.ROWS) {
+			ws = new Workspace(field);
+			workspaces.set(ws);
+		}
+		return ws;
+	}
+
+	/**
+	 * Playfields and search buffers owned by a single thread.
+	 */
+	private static class Workspace {
+		final Playfield afterCurrent;
+		final Playfield afterNext;
+		final MoveGenerator generator;
+		final PlacementList nextPlacements = new PlacementList();
+
+		Workspace(Playfield field) {
+			this.afterCurrent = new Playfield(field.COLUMNS, field.ROWS);
+			this.afterNext = new Playfield(field.COLUMNS, field.ROWS);
+			this.generator = new MoveGenerator(field.COLUMNS, field.ROWS);
+		}
+	}
+
+	/**
+	 * Best placement of a range of placements, and its score.
+	 */
+	private static class Result {
+		final int index;
+		final double score;
+
+		Result(int index, double score) {
+			this.index = index;
+			this.score = score;
+		}
+	}
+
+	/**
+	 * Task scoring a range of the placements of the current piece. Ranges
+	 * larger than the threshold are split in two halves, scored in parallel.
+	 */
+	private class PlacementTask extends RecursiveTask<Result> {
+
+		// Serial Version UID
+		private static final long serialVersionUID = 1L;
+
+		private final Playfield field;
+		private final Piece current, next;
+		private final boolean sameColorOnly, cascade;
+		private final PlacementList list;
+		private final int from, to;
+
+		PlacementTask(Playfield field, Piece current, Piece next, boolean sameColorOnly,
+				boolean cascade, PlacementList list, int from, int to) {
+			this.field = field;
+			this.current = current;
+			this.next = next;
+			this.sameColorOnly = sameColorOnly;
+			this.cascade = cascade;
+			this.list = list;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Result compute() {
+			if (to - from <= SPLIT_THRESHOLD) return scoreRange();
+
+			int middle = (from + to) >>> 1;
+			PlacementTask left = new PlacementTask(field, current, next, sameColorOnly, cascade, list, from, middle);
+			PlacementTask right = new PlacementTask(field, current, next, sameColorOnly, cascade, list, middle, to);
+			left.fork();
+			Result rightResult = right.compute();
+			Result leftResult = left.join();
+			// Prefer the left result on ties, so that the result does not
+			// depend on how the tasks were scheduled
+			return rightResult.score > leftResult.score ? rightResult : leftResult;
+		}
+
+		/**
+		 * Scores the whole range on the current thread.
+		 *
+		 * @return the best placement of the range.
+		 */
+		Result scoreRange() {
+			int bestIndex = from;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double score = scorePlacement(field, current, next, sameColorOnly, cascade, list, i);
+				if (score > bestScore) {
+					bestScore = score;
+					bestIndex = i;
+				}
+			}
+			return new Result(bestIndex, bestScore);
+		}
+	}
+}
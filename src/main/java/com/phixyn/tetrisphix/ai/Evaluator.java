@@ -0,0 +1,117 @@
+package com.phixyn.tetrisphix.ai;
+
+import com.phixyn.tetrisphix.engine.Playfield;
+
+/**
+ * Scores a board after a piece has been placed, as a weighted sum of a few
+ * features of the board. The higher the score, the better the board. The
+ * features are:
+ * <ul>
+ * <li>aggregate height - the sum of the heights of every column;</li>
+ * <li>holes - the number of empty tiles with a block above them;</li>
+ * <li>bumpiness - the sum of the height differences between neighbouring
+ * columns;</li>
+ * <li>wells - the sum of the depths of the columns that are lower than both
+ * of their neighbours (the walls count as infinitely high);</li>
+ * <li>lines - the number of lines cleared to reach the board.</li>
+ * </ul>
+ * An Evaluator is immutable and can be shared between threads.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		ComputerPlayer
+ */
+public class Evaluator {
+
+	// Number of weights, in the order of the features above
+	public static final int FEATURES = 5;
+
+	// Index of each feature in the weights array
+	public static final int HEIGHT = 0;
+	public static final int HOLES = 1;
+	public static final int BUMPINESS = 2;
+	public static final int WELLS = 3;
+	public static final int LINES = 4;
+
+	// Weights that play well enough, found by hand and by earlier tuning
+	private static final double[] DEFAULT_WEIGHTS = {
+		-0.510066, -0.35663, -0.184483, -0.1, 0.760666
+	};
+
+	private final double[] weights;
+
+	/**
+	 * Creates an evaluator with the default weights.
+	 */
+	public Evaluator() {
+		this(DEFAULT_WEIGHTS);
+	}
+
+	/**
+	 * @param weights - the weight of each feature, indexed by the feature
+	 * constants of this class. The array is copied.
+	 */
+	public Evaluator(double[] weights) {
+		if (weights.length != FEATURES) {
+			throw new IllegalArgumentException("Expected " + FEATURES + " weights, got " + weights.length);
+		}
+		this.weights = weights.clone();
+	}
+
+	/**
+	 * Scores a board.
+	 *
+	 * @param field - 	the board after the placement
+	 * @param lines - 	the number of lines cleared by the placement
+	 * @return			the score of the board, higher is better.
+	 */
+	public double evaluate(Playfield field, int lines) {
+		return evaluateBoard(field) + weights[LINES] * lines;
+	}
+
+	/**
+	 * Scores a board without the lines cleared to reach it. The score only
+	 * depends on the filled tiles of the board, so it can be cached by the
+	 * board's hash.
+	 *
+	 * @param field - 	the board
+	 * @return			the score of the board, higher is better.
+	 * @see				Playfield#getHash()
+	 */
+	public double evaluateBoard(Playfield field) {
+		int columns = field.COLUMNS;
+		int rows = field.ROWS;
+		int aggregateHeight = 0, holes = 0, bumpiness = 0, wells = 0;
+
+		for (int col = 0; col < columns; col++) {
+			int height = field.getColumnHeight(col);
+			aggregateHeight += height;
+
+			// Every empty tile below the top of the column is a hole
+			for (int row = rows - height + 1; row < rows; row++) {
+				if (!field.isFilled(col, row)) holes++;
+			}
+
+			if (col > 0) {
+				bumpiness += Math.abs(height - field.getColumnHeight(col - 1));
+			}
+
+			int left = col > 0 ? field.getColumnHeight(col - 1) : Integer.MAX_VALUE;
+			int right = col < columns - 1 ? field.getColumnHeight(col + 1) : Integer.MAX_VALUE;
+			int depth = Math.min(left, right) - height;
+			if (depth > 0 && depth < Integer.MAX_VALUE - rows) wells += depth;
+		}
+
+		return weights[HEIGHT] * aggregateHeight
+				+ weights[HOLES] * holes
+				+ weights[BUMPINESS] * bumpiness
+				+ weights[WELLS] * wells;
+	}
+
+	/**
+	 * @return a copy of the weights of this evaluator.
+	 */
+	public double[] getWeights() {
+		return weights.clone();
+	}
+}
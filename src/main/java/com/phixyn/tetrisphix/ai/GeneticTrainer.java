@@ -0,0 +1,377 @@
+package com.phixyn.tetrisphix.ai;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.phixyn.tetrisphix.engine.BagRandomizer;
+import com.phixyn.tetrisphix.engine.GameEngine;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+
+/**
+ * Tunes the weights of the Evaluator with a genetic algorithm. Every
+ * individual of the population is a vector of weights, and its fitness is the
+ * total number of lines cleared by the ComputerPlayer in a few headless games.
+ * Every individual of a generation plays the same seeded games, so that they
+ * are compared fairly. The games are spread across all the cores.
+ * <p>
+ * After every generation, the worst individuals are replaced by the children
+ * of individuals picked by tournament, and the population is written to a
+ * checkpoint file. If the checkpoint file exists when the trainer starts,
+ * training resumes from it.
+ * <p>
+ * Usage: GeneticTrainer [population] [generations] [games] [pieces] [file]
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Evaluator
+ * @see		ComputerPlayer
+ */
+public class GeneticTrainer {
+
+	// Default training settings, overridden by the command line arguments
+	private static final int DEFAULT_POPULATION = 100;
+	private static final int DEFAULT_GENERATIONS = 50;
+	private static final int DEFAULT_GAMES = 10;
+	private static final int DEFAULT_PIECES = 500;
+	public static final String DEFAULT_CHECKPOINT_FILE = System.getProperty("user.home") + File.separator + "TetrisPhix-training.dat";
+
+	// Fraction of the population replaced every generation
+	private static final double OFFSPRING_RATE = 0.3;
+	// Fraction of the population taking part in each tournament
+	private static final double TOURNAMENT_RATE = 0.1;
+	// Chance for a child to be mutated, and the largest mutation
+	private static final double MUTATION_RATE = 0.05;
+	private static final double MUTATION_STEP = 0.2;
+
+	private final int populationSize;
+	private final int gamesPerIndividual;
+	private final int maxPieces;
+	private final File checkpointFile;
+	private final ForkJoinPool pool;
+
+	// Weights of each individual, and its fitness in the last generation
+	private double[][] population;
+	private long[] fitness;
+
+	// Number of generations evaluated so far
+	private int generation;
+
+	// Seed from which the games and the random choices of every generation
+	// are derived, so that a resumed training picks up where it left off
+	private long seed;
+
+	/**
+	 * @param populationSize - 		the number of individuals
+	 * @param gamesPerIndividual - 	the number of games played by each
+	 * 								individual every generation
+	 * @param maxPieces - 			the number of pieces after which a game
+	 * 								is stopped
+	 * @param checkpointFile - 		the file where the population is saved
+	 * @param pool - 				the pool in which the games are played
+	 */
+	public GeneticTrainer(int populationSize, int gamesPerIndividual, int maxPieces,
+			File checkpointFile, ForkJoinPool pool) {
+		this.populationSize = populationSize;
+		this.gamesPerIndividual = gamesPerIndividual;
+		this.maxPieces = maxPieces;
+		this.checkpointFile = checkpointFile;
+		this.pool = pool;
+	}
+
+	/**
+	 * Creates a new random population, or loads the one saved in the
+	 * checkpoint file if there is one.
+	 *
+	 * @param seed - the seed of a new population
+	 */
+	public void init(long seed) {
+		if (checkpointFile.exists() && loadCheckpoint()) {
+			System.out.println("[INFO] Resuming training at generation " + generation + ".");
+			return;
+		}
+
+		this.seed = seed;
+		this.generation = 0;
+		this.population = new double[populationSize][];
+		this.fitness = new long[populationSize];
+
+		Random random = new Random(seed);
+		for (int i = 0; i < populationSize; i++) {
+			double[] weights = new double[Evaluator.FEATURES];
+			for (int j = 0; j < weights.length; j++) {
+				weights[j] = random.nextDouble() - 0.5;
+			}
+			population[i] = normalize(weights);
+		}
+	}
+
+	/**
+	 * Evaluates the population, breeds the next one and saves it to the
+	 * checkpoint file.
+	 *
+	 * @return the number of games played per second and per core.
+	 */
+	public double runGeneration() throws InterruptedException, ExecutionException {
+		Random random = new Random(seed + generation * 0x9E3779B97F4A7C15L);
+		long[] gameSeeds = new long[gamesPerIndividual];
+		for (int i = 0; i < gameSeeds.length; i++) {
+			gameSeeds[i] = random.nextLong();
+		}
+
+		// One task per game, so that the cores stay busy until the very end
+		List<Callable<Integer>> games = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < populationSize; i++) {
+			final Evaluator evaluator = new Evaluator(population[i]);
+			for (final long gameSeed : gameSeeds) {
+				games.add(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						return playGame(evaluator, gameSeed, maxPieces);
+					}
+				});
+			}
+		}
+
+		long start = System.nanoTime();
+		List<Future<Integer>> results = pool.invokeAll(games);
+		Arrays.fill(fitness, 0);
+		for (int i = 0; i < results.size(); i++) {
+			fitness[i / gamesPerIndividual] += results.get(i).get();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double gamesPerCore = games.size() / seconds / pool.getParallelism();
+
+		sortByFitness();
+		System.out.println(String.format(Locale.ROOT,
+				"[INFO] Generation %d: best %d lines, mean %.1f lines, %.2f games/s/core, weights %s",
+				generation, fitness[0], meanFitness(), gamesPerCore, Arrays.toString(population[0])));
+
+		breed(random);
+		generation++;
+		saveCheckpoint();
+		return gamesPerCore;
+	}
+
+	/**
+	 * Plays a headless game with the given evaluator until it is over or the
+	 * maximum number of pieces has been placed.
+	 *
+	 * @param evaluator - 	the evaluator of the computer player
+	 * @param seed - 		the seed of the game
+	 * @param maxPieces - 	the number of pieces after which the game stops
+	 * @return				the number of lines cleared.
+	 */
+	public static int playGame(Evaluator evaluator, long seed, int maxPieces) {
+		GameEngine engine = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), seed));
+		// The games already run in parallel, so each one uses a single thread
+		ComputerPlayer player = new ComputerPlayer(evaluator, null, false);
+		engine.start(seed);
+
+		for (int pieces = 0; pieces < maxPieces && !engine.isOver(); pieces++) {
+			if (!player.play(engine)) break;
+			// The piece has been dropped, so this step locks it
+			engine.step();
+		}
+		return engine.getLinesClear();
+	}
+
+	/**
+	 * Replaces the worst individuals with children of individuals picked by
+	 * tournament. A child's weights are the average of its parents' weights,
+	 * weighted by their fitness. The population must be sorted by fitness.
+	 */
+	private void breed(Random random) {
+		int offspring = (int) (populationSize * OFFSPRING_RATE);
+		int tournament = Math.max(2, (int) (populationSize * TOURNAMENT_RATE));
+		double[][] children = new double[offspring][];
+
+		for (int c = 0; c < offspring; c++) {
+			// The population is sorted, so the two lowest indices drawn are
+			// the two fittest individuals of the tournament
+			int first = populationSize, second = populationSize;
+			for (int t = 0; t < tournament; t++) {
+				int i = random.nextInt(populationSize);
+				if (i < first) {
+					second = first;
+					first = i;
+				} else if (i < second && i != first) {
+					second = i;
+				}
+			}
+			if (second == populationSize) second = first;
+
+			double f1 = fitness[first], f2 = fitness[second];
+			if (f1 + f2 == 0) f1 = f2 = 1;
+			double[] child = new double[Evaluator.FEATURES];
+			for (int j = 0; j < child.length; j++) {
+				child[j] = population[first][j] * f1 + population[second][j] * f2;
+			}
+			if (random.nextDouble() < MUTATION_RATE) {
+				child[random.nextInt(child.length)] += (random.nextDouble() * 2 - 1) * MUTATION_STEP;
+			}
+			children[c] = normalize(child);
+		}
+
+		for (int c = 0; c < offspring; c++) {
+			population[populationSize - 1 - c] = children[c];
+			fitness[populationSize - 1 - c] = 0;
+		}
+	}
+
+	/**
+	 * Sorts the population from the fittest to the least fit individual.
+	 */
+	private void sortByFitness() {
+		Integer[] order = new Integer[populationSize];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(fitness[b], fitness[a]);
+			}
+		});
+
+		double[][] sortedPopulation = new double[populationSize][];
+		long[] sortedFitness = new long[populationSize];
+		for (int i = 0; i < order.length; i++) {
+			sortedPopulation[i] = population[order[i]];
+			sortedFitness[i] = fitness[order[i]];
+		}
+		population = sortedPopulation;
+		fitness = sortedFitness;
+	}
+
+	private double meanFitness() {
+		long total = 0;
+		for (long f : fitness) total += f;
+		return (double) total / populationSize;
+	}
+
+	/**
+	 * Scales a vector of weights to unit length. Only the ratios between the
+	 * weights matter to the evaluator.
+	 */
+	private static double[] normalize(double[] weights) {
+		double length = 0;
+		for (double w : weights) length += w * w;
+		length = Math.sqrt(length);
+		if (length == 0) return weights;
+		for (int i = 0; i < weights.length; i++) weights[i] /= length;
+		return weights;
+	}
+
+	/**
+	 * Writes the generation, the seed and every individual with its fitness
+	 * to the checkpoint file. The file is written next to the checkpoint and
+	 * then moved over it, so that an interrupted write never loses the
+	 * previous checkpoint. The file is only moved once it has been written
+	 * and closed without errors.
+	 */
+	private void saveCheckpoint() {
+		File tempFile = new File(checkpointFile.getPath() + ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+				writer.write("generation\t" + generation);
+				writer.newLine();
+				writer.write("seed\t" + seed);
+				writer.newLine();
+				for (int i = 0; i < populationSize; i++) {
+					StringBuilder line = new StringBuilder().append(fitness[i]);
+					for (double w : population[i]) line.append('\t').append(w);
+					writer.write(line.toString());
+					writer.newLine();
+				}
+			}
+			Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
+			System.out.println("[ERROR] Error writing checkpoint file.");
+			System.out.println("[ERROR] Reason: " + ex);
+		}
+	}
+
+	/**
+	 * Reads the population from the checkpoint file.
+	 *
+	 * @return false if the file could not be read or does not match the
+	 * population size.
+	 */
+	private boolean loadCheckpoint() {
+		try (Scanner scanner = new Scanner(checkpointFile)) {
+			scanner.useLocale(Locale.ROOT);
+			scanner.next();
+			int savedGeneration = scanner.nextInt();
+			scanner.next();
+			long savedSeed = scanner.nextLong();
+
+			double[][] savedPopulation = new double[populationSize][Evaluator.FEATURES];
+			long[] savedFitness = new long[populationSize];
+			for (int i = 0; i < populationSize; i++) {
+				savedFitness[i] = scanner.nextLong();
+				for (int j = 0; j < Evaluator.FEATURES; j++) {
+					savedPopulation[i][j] = scanner.nextDouble();
+				}
+			}
+
+			this.generation = savedGeneration;
+			this.seed = savedSeed;
+			this.population = savedPopulation;
+			this.fitness = savedFitness;
+			return true;
+		} catch (FileNotFoundException ex) {
+			System.out.println("[ERROR] Checkpoint file not found.");
+		} catch (RuntimeException ex) {
+			System.out.println("[ERROR] Checkpoint file does not match the population, starting over.");
+		}
+		return false;
+	}
+
+	// Getter methods
+	public int getGeneration() {
+		return generation;
+	}
+
+	public double[] getBestWeights() {
+		return population[0].clone();
+	}
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		int populationSize = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_POPULATION;
+		int generations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GENERATIONS;
+		int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+		int pieces = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_PIECES;
+		File file = new File(args.length > 4 ? args[4] : DEFAULT_CHECKPOINT_FILE);
+
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		GeneticTrainer trainer = new GeneticTrainer(populationSize, games, pieces, file, pool);
+		trainer.init(System.nanoTime());
+		System.out.println("[INFO] Training on " + pool.getParallelism() + " cores, checkpoint file " + file + ".");
+
+		double totalRate = 0;
+		int runs = 0;
+		while (trainer.getGeneration() < generations) {
+			totalRate += trainer.runGeneration();
+			runs++;
+		}
+		pool.shutdown();
+
+		if (runs > 0) {
+			System.out.println(String.format(Locale.ROOT, "[INFO] Average throughput: %.2f games/s/core.", totalRate / runs));
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.phixyn.tetrisphix.ai;
+
+import com.phixyn.tetrisphix.engine.GameEngine;
+
+/**
+ * A computer player that moves the current piece of a game through the game
+ * engine, using the same moves as a human player.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		ComputerPlayer
+ * @see		BeamSearchPlayer
+ */
+public interface Player {
+
+	/**
+	 * Finds a placement for the current piece of a game and moves the piece
+	 * there. The piece is hard dropped but not locked; it is added to the
+	 * board on the next step.
+	 *
+	 * @param engine - the game to play
+	 * @return false if the current piece has nowhere to go.
+	 */
+	boolean play(GameEngine engine);
+}
@@ -0,0 +1,118 @@
+package com.phixyn.tetrisphix.ai;
+
+/**
+ * Fixed-size cache of the scores of the positions visited by a search, keyed
+ * by their Zobrist hash. Each hash maps to a single slot of the table. When
+ * two positions want the same slot, the one searched the deepest is kept,
+ * unless the other one was stored by an older search, which is always
+ * replaced.
+ * <p>
+ * The whole table is allocated up front and never grows. A table is not
+ * thread safe.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		com.phixyn.tetrisphix.engine.Zobrist
+ */
+public class TranspositionTable {
+
+	// Number of slots used by the default constructor
+	public static final int DEFAULT_SIZE = 1 << 16;
+
+	// Slot index mask; the size is a power of two
+	private final int mask;
+
+	// Hash, score, depth and search of the position stored in each slot
+	private final long[] keys;
+	private final double[] scores;
+	private final byte[] depths;
+	private final byte[] searches;
+
+	// Number of the current search, so that old entries can be told apart.
+	// Slots stored by search 0 are empty.
+	private byte search = 1;
+
+	/**
+	 * Creates a table with the default number of slots.
+	 */
+	public TranspositionTable() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * @param size - the number of slots, rounded up to a power of two
+	 */
+	public TranspositionTable(int size) {
+		if (size < 1 || size > 1 << 30) {
+			throw new IllegalArgumentException("Invalid table size: " + size);
+		}
+		int slots = Integer.highestOneBit(size);
+		if (slots < size) slots <<= 1;
+
+		this.mask = slots - 1;
+		this.keys = new long[slots];
+		this.scores = new double[slots];
+		this.depths = new byte[slots];
+		this.searches = new byte[slots];
+	}
+
+	/**
+	 * Starts a new search. Entries of the previous searches stay valid, but
+	 * any new entry may replace them.
+	 */
+	public void newSearch() {
+		search++;
+		// Skip 0, which marks empty slots
+		if (search == 0) search = 1;
+	}
+
+	/**
+	 * Looks a position up.
+	 *
+	 * @param key - the hash of the position
+	 * @return the slot of the position, or -1 if it is not in the table.
+	 */
+	public int probe(long key) {
+		int slot = (int) (key ^ (key >>> 32)) & mask;
+		return searches[slot] != 0 && keys[slot] == key ? slot : -1;
+	}
+
+	/**
+	 * Stores the score of a position, unless its slot holds a position of
+	 * the current search that was searched deeper.
+	 *
+	 * @param key - 	the hash of the position
+	 * @param depth - 	how deep the position was searched
+	 * @param score - 	the score of the position
+	 */
+	public void store(long key, int depth, double score) {
+		int slot = (int) (key ^ (key >>> 32)) & mask;
+		if (searches[slot] == search && keys[slot] != key && depths[slot] > depth) return;
+
+		keys[slot] = key;
+		scores[slot] = score;
+		depths[slot] = (byte) depth;
+		searches[slot] = search;
+	}
+
+	/**
+	 * @param slot - a slot returned by probe
+	 * @return true if the slot was stored by the current search.
+	 */
+	public boolean isCurrent(int slot) {
+		return searches[slot] == search;
+	}
+
+	// Getter methods
+	public double getScore(int slot) {
+		return scores[slot];
+	}
+
+	public int getDepth(int slot) {
+		return depths[slot];
+	}
+
+	public int getSize() {
+		return keys.length;
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * TetrisPhix - A Java Tetris implementation
+ * <p>
+ * Sub-package containing the computer players of the Tetris game. Provides
+ * the evaluation of boards and the players that search the placements of the
+ * pieces, using the game engine so that they can also run headlessly.
+ * <p>
+ * This package is part of TetrisPhix and is licensed under the GNU General
+ * Public License version 3. This license, described below, applies to all
+ * class files included in this package.
+ * <p>
+ * TetrisPhix is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * TetrisPhix is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with TetrisPhix. If not, see <http://www.gnu.org/licenses/>.
+ * <p>
+ * Additionally, please read the DISCLAIMER in the file provided. If the
+ * file is missing, see the below.
+ * <p>
+ * TetrisPhix does not hold any rights or copyright. This program is not
+ * subject to any copyright. You may use, modify and distribute the program as
+ * long as you provide the LICENSE and DISCLAIMER files included in the top
+ * level directory.
+ * <p>
+ * This program was developed as part of a University assignment and is
+ * intended to be used solely for teaching, educational and demonstration
+ * purposes. No copyright infringement is intended and no monetization shall be
+ * made from this program.
+ * <p>
+ * Under Section 107 of the Copyright Act 1976, allowance is made for fair use
+ * for purposes such as criticism, comment, news reporting, teaching,
+ * scholarship, and research. Fair use is a use permitted by copyright statute
+ * that might otherwise be infringing. Non-profit, educational or personal use
+ * tips the balance in favor of fair use.
+ * <p>
+ * TetrisPhix, Phixyn and Alpeche Pancha are not affiliated with the Tetris
+ * trademark, Tetris Holding or The Tetris Company LLC.
+ * <p>
+ * Tetris is a registered trademark and its rightful copyright holder is the
+ * Tetris Holding, who reserves all its rights.
+ * <p>
+ * Tetris logos, Tetris theme song and Tetriminos are trademarks of the
+ * Tetris Holding.
+ * <p>
+ * The Tetris trade dress is owned by Tetris Holding and licenses are issued
+ * by The Tetris Company LLC. Game Design by Alexey Pajitnov.
+ *
+ * @author 	Alpeche Pancha
+ * @version 1.0.5
+ * @see 	com.phixyn.tetrisphix
+ * @see 	com.phixyn.tetrisphix.engine
+ */
+package com.phixyn.tetrisphix.ai;
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.phixyn.tetrisphix.engine;
+
+/**
+ * Randomizer that deals pieces from a shuffled bag containing one piece of
+ * every type, commonly known as the 7-bag. When the bag is empty, it is
+ * refilled and shuffled again. This guarantees that every piece appears once
+ * every 7 pieces, and that there are at most 12 pieces between two pieces of
+ * the same type.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Randomizer
+ */
+public class BagRandomizer extends SeededRandomizer {
+
+	// The bag of piece types, reused for every refill
+	private final int[] bag;
+
+	// Index of the next piece to be dealt from the bag
+	private int position;
+
+	/**
+	 * @param pieceCount - 	the number of piece types to choose from
+	 * @param seed - 		the seed of the sequence
+	 */
+	public BagRandomizer(int pieceCount, long seed) {
+		super(pieceCount, seed);
+		this.bag = new int[pieceCount];
+		reset();
+	}
+
+	@Override
+	protected void reset() {
+		// Mark the bag as empty so that it is filled on the next piece
+		position = bag.length;
+	}
+
+	@Override
+	public Randomizer copy() {
+		BagRandomizer copy = new BagRandomizer(pieceCount, getSeed());
+		copy.copyFrom(this);
+		return copy;
+	}
+
+	@Override
+	public void copyFrom(Randomizer other) {
+		super.copyFrom(other);
+		BagRandomizer bagRandomizer = (BagRandomizer) other;
+		System.arraycopy(bagRandomizer.bag, 0, bag, 0, bag.length);
+		position = bagRandomizer.position;
+	}
+
+	@Override
+	public int nextPiece() {
+		if (position == bag.length) {
+			// Refill the bag and shuffle it with the Fisher-Yates algorithm
+			for (int i = 0; i < bag.length; i++) {
+				bag[i] = i;
+			}
+			for (int i = bag.length - 1; i > 0; i--) {
+				int j = nextInt(i + 1);
+				int tmp = bag[i];
+				bag[i] = bag[j];
+				bag[j] = tmp;
+			}
+			position = 0;
+		}
+		return bag[position++];
+	}
+}
@@ -0,0 +1,876 @@
+package com.phixyn.tetrisphix.engine;
+
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Class responsible for the game rules. It performs all game functions such
+ * as generating Tetrominos, detecting collisions, clearing lines and checking
+ * if the game is over. It does not use Swing or AWT, and it does not own a
+ * timer: the game only advances when the step method is called. This allows
+ * games to be simulated headlessly, as fast as the caller wants.
+ * <p>
+ * The Board class drives an instance of this class with a Swing Timer and
+ * draws its state.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Playfield
+ * @see		Randomizer
+ * @see		Piece
+ */
+public class GameEngine {
+
+	// Game data constants
+	private final int SCORE_MULTIPLIER = 10;
+	private final int LINES_PER_LEVEL = 10;
+
+	/* Gravity is measured in rows per frame, in 16.16 fixed point: ROW is a
+	 * speed of one row every frame (1G), and at MAX_GRAVITY (20G) a piece
+	 * falls to the bottom of a standard board in a single frame. */
+	public static final int FRAMES_PER_SECOND = 60;
+	public static final int ROW = 1 << 16;
+	public static final int MAX_GRAVITY = 20 * ROW;
+	// Frames a piece falls one row in at level 1, fewer every level up to
+	// level 8, then gravity grows by half every level up to MAX_GRAVITY
+	private static final int INITIAL_FRAMES_PER_ROW = 24;
+	private static final int FRAMES_PER_ROW_DECREMENT = 3;
+	private static final int LAST_LINEAR_LEVEL = 8;
+	// Fewest frames a piece rests on the stack before it locks, so that it
+	// can still be slid or rotated at high gravity
+	private static final int LOCK_DELAY_FRAMES = 3;
+
+	// Fewest columns a board needs for every piece to spawn inside it
+	public static final int MIN_COLUMNS = minimumColumns();
+
+	// Number of upcoming pieces known in advance, by default and at most
+	public static final int DEFAULT_PREVIEW = 1;
+	public static final int MAX_PREVIEW = 7;
+
+	// The board's grid
+	private final Playfield playfield;
+
+	// Game data and information
+	private int playerScore;
+	private int linesClear;
+	private int linesLeft;
+	private int gameLevel;
+	private String gameMode = "Classic";
+
+	// Game state information
+	private boolean isOver = false;
+
+	/* In cascade mode, whether blocks are still falling after a line clear.
+	 * The piece that cleared the lines stays current, locked, until the
+	 * blocks come to rest, and the next piece only spawns then. */
+	private boolean cascading = false;
+
+	/* Gravity of the current level, the fraction of a row the current piece
+	 * has fallen by since it last moved down a whole row, and the number of
+	 * frames it has been resting on the stack for. */
+	private int gravity = gravityForLevel(1);
+	private int fallCredit = 0;
+	private int restFrames = 0;
+	
+	// Decides which pieces are spawned and their colors
+	private final Randomizer randomizer;
+	
+	// Finds the placements of the current piece, created when first needed
+	private MoveGenerator moveGenerator;
+
+	// Piece (tetromino) objects
+	private Piece currentPiece;
+
+	/* Upcoming pieces, in a ring buffer: the next piece is at previewHead,
+	 * and the slot of each piece that spawns is refilled with a new piece
+	 * at the back of the queue. */
+	private final Piece[] preview;
+	private int previewHead = 0;
+
+	/* Pieces that have been locked, by type, reused for the new pieces of
+	 * the queue so that spawning allocates nothing once every type has been
+	 * seen. No more pieces of a type than fit in the queue and the current
+	 * piece are ever needed at once. */
+	private final Piece[][] spares;
+	private final int[] spareCount;
+	
+	// Shape of the current piece, cached for collision tests
+	private PieceShape currentShape;
+	
+	/* Row where the current piece lands if dropped straight down. It is only
+	 * recomputed when the piece moves sideways, rotates or is replaced,
+	 * because moving straight down does not change where it lands. */
+	private int landingRow;
+	private boolean landingValid = false;
+
+	/**
+	 * Creates an engine that picks every piece uniformly at random, seeded
+	 * from the system clock.
+	 */
+	public GameEngine() {
+		this(new PureRandomizer(PieceRegistry.getPieceCount(), System.nanoTime()));
+	}
+	
+	/**
+	 * Creates an engine with an empty playfield and generates the first
+	 * pieces from the given randomizer, so that they can be drawn before the
+	 * game starts.
+	 * 
+	 * @param randomizer - the randomizer used to pick the pieces
+	 * @see Randomizer
+	 */
+	public GameEngine(Randomizer randomizer) {
+		this(randomizer, Playfield.DEFAULT_COLUMNS, Playfield.DEFAULT_ROWS);
+	}
+
+	/**
+	 * Creates an engine with an empty playfield of the given size and
+	 * generates the first pieces from the given randomizer. Pieces spawn in
+	 * the middle of the top row, whatever the width of the board.
+	 *
+	 * @param randomizer - 	the randomizer used to pick the pieces
+	 * @param columns - 	the number of columns of the board
+	 * @param rows - 		the number of rows of the board
+	 * @throws IllegalArgumentException if the board is narrower than
+	 * MIN_COLUMNS
+	 * @see Playfield#Playfield(int, int)
+	 */
+	public GameEngine(Randomizer randomizer, int columns, int rows) {
+		this(randomizer, columns, rows, DEFAULT_PREVIEW);
+	}
+
+	/**
+	 * Creates an engine with an empty playfield of the given size, which
+	 * shows the given number of upcoming pieces in advance, and generates
+	 * the first pieces from the given randomizer. The randomizer deals the
+	 * same pieces in the same order whatever the size of the preview.
+	 *
+	 * @param randomizer - 	the randomizer used to pick the pieces
+	 * @param columns - 	the number of columns of the board
+	 * @param rows - 		the number of rows of the board
+	 * @param previewSize - the number of upcoming pieces, from 1 to
+	 * 						MAX_PREVIEW
+	 * @throws IllegalArgumentException if the board is narrower than
+	 * MIN_COLUMNS or the preview size is out of range
+	 */
+	public GameEngine(Randomizer randomizer, int columns, int rows, int previewSize) {
+		if (columns < MIN_COLUMNS) {
+			throw new IllegalArgumentException("A board must have at least " + MIN_COLUMNS
+					+ " columns for its pieces to spawn, got " + columns);
+		}
+		if (previewSize < 1 || previewSize > MAX_PREVIEW) {
+			throw new IllegalArgumentException("Preview size must be 1 to " + MAX_PREVIEW + ", got " + previewSize);
+		}
+		this.playfield = new Playfield(columns, rows);
+		this.randomizer = randomizer;
+		this.preview = new Piece[previewSize];
+		this.spares = new Piece[PieceRegistry.getPieceCount()][previewSize + 1];
+		this.spareCount = new int[PieceRegistry.getPieceCount()];
+		this.currentPiece = generatePiece();
+		for (int i = 0; i < previewSize; i++) {
+			preview[i] = generatePiece();
+		}
+		this.currentShape = currentPiece.getShape();
+		this.landingValid = false;
+	}
+
+	/**
+	 * Works out the fewest columns in which every piece of the registry
+	 * spawns inside the board. Pieces spawn with their matrix centered on
+	 * the board, so a board at least PieceShape.SIZE columns wide always
+	 * fits them.
+	 *
+	 * @return the narrowest width of a board.
+	 */
+	private static int minimumColumns() {
+		for (int columns = 1; columns < PieceShape.SIZE; columns++) {
+			int x = Piece.SPAWN_POSITION + columns / 2;
+			boolean fits = true;
+			for (int type = 0; type < PieceRegistry.getPieceCount() && fits; type++) {
+				PieceShape shape = PieceRegistry.getShape(type);
+				fits = x + shape.getMinCol(0) >= 0 && x + shape.getMaxCol(0) < columns;
+			}
+			if (fits) return columns;
+		}
+		return PieceShape.SIZE;
+	}
+
+	/**
+	 * Starts a new game with a new seed taken from the system clock.
+	 */
+	public void start() {
+		start(System.nanoTime());
+	}
+	
+	/**
+	 * Starts a new game. Clears the playfield, resets all game data, reseeds
+	 * the randomizer and generates new pieces. Two games started with the
+	 * same seed and played with the same moves are identical.
+	 * 
+	 * @param seed - the seed of the randomizer
+	 */
+	public void start(long seed) {
+		playfield.clear();
+		randomizer.setSeed(seed);
+
+		// Reset game data
+		playerScore = 0;
+		linesClear = 0;
+		linesLeft = LINES_PER_LEVEL;
+		gameLevel = 1;
+		gravity = gravityForLevel(gameLevel);
+		fallCredit = 0;
+		restFrames = 0;
+		isOver = false;
+		cascading = false;
+
+		// Generate the pieces, or tetrominos
+		currentPiece = generatePiece();
+		previewHead = 0;
+		for (int i = 0; i < preview.length; i++) {
+			preview[i] = generatePiece();
+		}
+		currentShape = currentPiece.getShape();
+		landingValid = false;
+	}
+
+	/**
+	 * Copies the whole state of the game into a snapshot, without allocating
+	 * anything once the snapshot has been used.
+	 *
+	 * @param out - the snapshot to fill
+	 * @throws IllegalStateException if the board is too large for its pieces
+	 * to be saved
+	 * @see GameSnapshot
+	 * @see #canSnapshot()
+	 */
+	public void saveSnapshot(GameSnapshot out) {
+		if (!canSnapshot()) {
+			throw new IllegalStateException("Can't save a snapshot of a " + playfield.COLUMNS
+					+ " by " + playfield.ROWS + " board");
+		}
+		if (out.playfield == null || out.playfield.COLUMNS != playfield.COLUMNS || out.playfield.ROWS != playfield.ROWS) {
+			out.playfield = new Playfield(playfield.COLUMNS, playfield.ROWS);
+		}
+		out.playfield.copyFrom(playfield);
+		out.playerScore = playerScore;
+		out.linesClear = linesClear;
+		out.linesLeft = linesLeft;
+		out.gameLevel = gameLevel;
+		out.fallCredit = fallCredit;
+		out.restFrames = restFrames;
+		out.gameMode = gameMode;
+		out.isOver = isOver;
+		out.cascading = cascading;
+		out.currentPiece = PieceState.of(currentPiece);
+		out.currentSpriteID = currentPiece.getSpriteID();
+		if (out.preview == null || out.preview.length != preview.length) {
+			out.preview = new int[preview.length];
+			out.previewSpriteIDs = new int[preview.length];
+		}
+		for (int i = 0; i < preview.length; i++) {
+			Piece piece = getPreviewPiece(i);
+			out.preview[i] = PieceState.of(piece);
+			out.previewSpriteIDs[i] = piece.getSpriteID();
+		}
+
+		if (out.randomizer == null || out.randomizer.getClass() != randomizer.getClass()) {
+			out.randomizer = randomizer.copy();
+		}
+		else {
+			out.randomizer.copyFrom(randomizer);
+		}
+		out.saved = true;
+	}
+
+	/**
+	 * Restores the whole state of the game from a snapshot. The game then
+	 * goes on exactly as it did after the snapshot was saved. The current
+	 * and next pieces are reused when they are of the same types as the
+	 * saved ones.
+	 *
+	 * @param in - a snapshot saved from an engine with the same kind of
+	 * randomizer and preview size
+	 * @see GameSnapshot
+	 */
+	public void restoreSnapshot(GameSnapshot in) {
+		if (!in.saved) throw new IllegalStateException("Nothing was saved in the snapshot");
+		if (in.preview.length != preview.length) {
+			throw new IllegalArgumentException("Can't restore a snapshot with " + in.preview.length
+					+ " upcoming pieces into a game with " + preview.length);
+		}
+
+		playfield.copyFrom(in.playfield);
+		playerScore = in.playerScore;
+		linesClear = in.linesClear;
+		linesLeft = in.linesLeft;
+		gameLevel = in.gameLevel;
+		gravity = gravityForLevel(gameLevel);
+		fallCredit = in.fallCredit;
+		restFrames = in.restFrames;
+		gameMode = in.gameMode;
+		isOver = in.isOver;
+		cascading = in.cascading;
+		randomizer.copyFrom(in.randomizer);
+
+		currentPiece = restorePiece(currentPiece, in.currentPiece, in.currentSpriteID);
+		for (int i = 0; i < preview.length; i++) {
+			int slot = previewSlot(i);
+			preview[slot] = restorePiece(preview[slot], in.preview[i], in.previewSpriteIDs[i]);
+		}
+		currentShape = currentPiece.getShape();
+		landingValid = false;
+	}
+
+	/**
+	 * Moves a piece to a saved state, or creates a new piece if the saved
+	 * state is of another type.
+	 */
+	private Piece restorePiece(Piece piece, int state, int spriteID) {
+		if (piece.getType() != PieceState.getType(state)) {
+			piece = PieceRegistry.create(PieceState.getType(state));
+		}
+		PieceState.apply(state, piece);
+		piece.setSpriteID(spriteID);
+		piece.setFalling(true);
+		return piece;
+	}
+
+	/**
+	 * Generates a Piece object of the type chosen by the randomizer, with a
+	 * random sprite, and sets its X coordinate so that it spawns in the middle
+	 * of the board. A spare piece of that type is reused if there is one.
+	 *
+	 * @return 	thePiece - the generated Piece object itself, in all its glory.
+	 * @see 	Piece
+	 * @see 	PieceRegistry
+	 */
+	private Piece generatePiece() {
+		int type = randomizer.nextPiece();
+		Piece thePiece;
+		if (spareCount[type] > 0) {
+			thePiece = spares[type][--spareCount[type]];
+			spares[type][spareCount[type]] = null;
+			thePiece.setRotation(0);
+			thePiece.setY(Piece.SPAWN_POSITION);
+			thePiece.setFalling(true);
+		}
+		else {
+			thePiece = PieceRegistry.create(type);
+		}
+		thePiece.setSpriteID(randomizer.nextInt(Piece.SPRITE_COUNT));
+
+		// Set its X value so that it spawns in the center of the board
+		thePiece.setX(Piece.SPAWN_POSITION + playfield.COLUMNS / 2);
+		return thePiece;
+	}
+
+	/**
+	 * Checks if the current piece can be at the given rotation, column and
+	 * row without colliding with the board limits or other blocks.
+	 *
+	 * @param pRotation - 	piece rotation
+	 * @param pX - 			piece column
+	 * @param pY - 			piece row
+	 * @return				boolean value indicating if the move is possible.
+	 */
+	public boolean canMove(int pRotation, int pX, int pY) {
+		return playfield.canPlace(currentShape, pRotation, pX, pY);
+	}
+
+	/**
+	 * Moves the current piece one column to the left, if possible.
+	 *
+	 * @return true if the piece moved.
+	 */
+	public boolean moveLeft() {
+		return shift(-1);
+	}
+
+	/**
+	 * Moves the current piece one column to the right, if possible.
+	 *
+	 * @return true if the piece moved.
+	 */
+	public boolean moveRight() {
+		return shift(1);
+	}
+
+	private boolean shift(int dx) {
+		if (isOver || cascading || !canMove(currentPiece.getRotation(), currentPiece.getX() + dx, currentPiece.getY())) {
+			return false;
+		}
+		currentPiece.setX(currentPiece.getX() + dx);
+		landingValid = false;
+		return true;
+	}
+
+	/**
+	 * Rotates the current piece to its next rotation, if possible.
+	 * The next rotation is rotation + 1 modulo the piece's possible
+	 * rotations, so that we always cycle through every possible rotation
+	 * (i.e. when a L-Piece rotation reaches 4, its next rotation will be 0).
+	 *
+	 * @return true if the piece rotated.
+	 */
+	public boolean rotate() {
+		if (isOver || cascading || currentPiece.getPossibleRotations() == 0) return false;
+
+		int nextRotation = (currentPiece.getRotation() + 1) % currentPiece.getPossibleRotations();
+		if (!canMove(nextRotation, currentPiece.getX(), currentPiece.getY())) return false;
+
+		currentPiece.setRotation(nextRotation);
+		landingValid = false;
+		return true;
+	}
+
+	/**
+	 * Moves the current piece down as far as it can go. The piece is not
+	 * locked; it will be added to the board on the next step, like any other
+	 * piece that can't move down.
+	 *
+	 * @return true if the piece moved.
+	 */
+	public boolean hardDrop() {
+		if (isOver || cascading) return false;
+
+		int y = getLandingRow();
+		if (y == currentPiece.getY()) return false;
+
+		currentPiece.setY(y);
+		return true;
+	}
+
+	/**
+	 * Moves the current piece down by one row, if possible, without adding
+	 * it to the board.
+	 *
+	 * @return true if the piece moved.
+	 */
+	public boolean moveDown() {
+		if (isOver || cascading || currentPiece.getY() >= getLandingRow()) return false;
+
+		currentPiece.setY(currentPiece.getY() + 1);
+		return true;
+	}
+
+	/**
+	 * Applies one of the inputs of a placement's path to the current piece.
+	 *
+	 * @param input - one of the MoveGenerator input constants
+	 * @return true if the piece moved.
+	 * @see MoveGenerator
+	 */
+	public boolean applyInput(int input) {
+		switch (input) {
+			case MoveGenerator.LEFT:
+				return moveLeft();
+			case MoveGenerator.RIGHT:
+				return moveRight();
+			case MoveGenerator.ROTATE:
+				return rotate();
+			case MoveGenerator.DOWN:
+				return moveDown();
+			case MoveGenerator.DROP:
+				return hardDrop();
+			default:
+				throw new IllegalArgumentException("Unknown input: " + input);
+		}
+	}
+
+	/**
+	 * Finds every final placement the current piece can reach from where it
+	 * is now, along with the inputs leading to each of them.
+	 *
+	 * @param out - the list where the placements are stored
+	 * @return the number of placements found.
+	 * @see MoveGenerator
+	 */
+	public int generatePlacements(PlacementList out) {
+		if (moveGenerator == null) {
+			moveGenerator = new MoveGenerator(playfield.COLUMNS, playfield.ROWS);
+		}
+		return moveGenerator.generate(playfield, currentShape,
+				currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY(), out);
+	}
+
+	/**
+	 * Finds the row where the current piece lands if it is dropped straight
+	 * down, using the playfield's skyline. The result is cached until the
+	 * piece moves sideways, rotates or is replaced, so this method can be
+	 * called on every repaint.
+	 *
+	 * @return the row of the current piece once it has landed.
+	 * @see Playfield#dropRow(PieceShape, int, int, int)
+	 */
+	public int getLandingRow() {
+		if (!landingValid) {
+			landingRow = playfield.dropRow(currentShape, currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY());
+			landingValid = true;
+		}
+		return landingRow;
+	}
+
+	/**
+	 * Advances the game by one gravity step. Attempts to move the current
+	 * piece down by one row. If the piece has reached the bottom of the board
+	 * or collided with the top of another piece in the board, then we make
+	 * the piece stop, add it to the board and update the current piece and
+	 * next piece. Additionally, we check if the piece filled any lines and
+	 * clear them by calling the deletePossibleLines method.
+	 * <p>
+	 * If the top most row of the board contains any blocks when a piece
+	 * can't move down, the game is over and further steps do nothing.
+	 * <p>
+	 * In cascade mode, the blocks fall as soon as the piece clears lines. If
+	 * they fill more lines, those are cleared on the next step, and so on,
+	 * one round of the cascade per step, so that a long cascade never holds
+	 * up a step. The next piece spawns once the blocks have come to rest.
+	 * <p>
+	 * Searches, training and benchmarks play through steps. The board plays
+	 * in real time through frame(), which steps when a piece locks.
+	 *
+	 * @see #frame()
+	 */
+	public void step() {
+		if (isOver) return;
+
+		// Resolve the next round of a cascade
+		if (cascading) {
+			cascading = cascadeRound();
+			if (!cascading) spawnNextPiece();
+			return;
+		}
+
+		// Check if we can move the current piece down and do so if we can
+		if (currentPiece.getY() < getLandingRow()) {
+			currentPiece.setY(currentPiece.getY() + 1);
+		}
+
+		// If we can't move the current piece down, check if the game is over
+		else if (!playfield.isRowEmpty(0)) {
+			isOver = true;
+		}
+
+		// If the game is not over, add the piece to the board.
+		else {
+			currentPiece.setFalling(false);
+			addPiece(currentPiece);
+			int lines = deletePossibleLines(currentPiece);
+			cascading = lines > 0 && !isOver && gameMode.equals("Cascade") && cascadeRound();
+			if (!cascading) spawnNextPiece();
+		}
+	}
+
+	/**
+	 * Advances the game by one frame, a 60th of a second, of gravity. The
+	 * gravity of the current level adds up over the frames, and the current
+	 * piece falls by as many whole rows as have added up, straight to where
+	 * it lands if that is closer, so that above 1G it falls several rows per
+	 * frame and at 20G it drops to the stack at once.
+	 * <p>
+	 * A piece resting on the stack locks when gravity would next move it
+	 * down, as with step(), but only once it has rested for at least
+	 * LOCK_DELAY_FRAMES frames. Moving it off a ledge makes it fall again.
+	 * During a cascade, each frame in which gravity adds up to a row resolves
+	 * one round of it.
+	 *
+	 * @see #step()
+	 * @see #gravityForLevel(int)
+	 */
+	public void frame() {
+		if (isOver) return;
+
+		fallCredit += gravity;
+		int rows = fallCredit >>> 16;
+		fallCredit &= ROW - 1;
+
+		if (cascading) {
+			if (rows > 0) step();
+			return;
+		}
+
+		// The landing row comes from the column heights of the stack, so the
+		// piece moves any number of rows at once
+		int landing = getLandingRow();
+		int y = currentPiece.getY();
+		if (y < landing) {
+			currentPiece.setY(Math.min(landing, y + rows));
+			restFrames = 0;
+		}
+		else if (++restFrames >= LOCK_DELAY_FRAMES && rows > 0) {
+			step();
+		}
+	}
+
+	/**
+	 * Works out the gravity of a level, in 16.16 fixed point rows per
+	 * frame. Up to level 8, a piece falls one row every 24 frames at level 1
+	 * and every 3 frames fewer each level, as the game always did. From
+	 * level 9 on, gravity grows by half every level, passing 1G at level 11
+	 * and reaching 20G at level 19.
+	 *
+	 * @param level - the game level, from 1
+	 * @return the gravity of the level, at most MAX_GRAVITY.
+	 */
+	public static int gravityForLevel(int level) {
+		int linear = Math.min(level, LAST_LINEAR_LEVEL) - 1;
+		int framesPerRow = INITIAL_FRAMES_PER_ROW - FRAMES_PER_ROW_DECREMENT * linear;
+		// Rounded up, so that the piece falls in exactly framesPerRow frames
+		long gravity = (ROW + framesPerRow - 1) / framesPerRow;
+		for (int l = LAST_LINEAR_LEVEL; l < level && gravity < MAX_GRAVITY; l++) {
+			gravity += gravity / 2;
+		}
+		return (int) Math.min(gravity, MAX_GRAVITY);
+	}
+
+	/**
+	 * Makes the next piece current and generates a new piece at the back of
+	 * the queue, in the slot the next piece was taken from. The piece that
+	 * was current is kept as a spare.
+	 */
+	private void spawnNextPiece() {
+		Piece locked = currentPiece;
+		if (spareCount[locked.getType()] < spares[locked.getType()].length) {
+			spares[locked.getType()][spareCount[locked.getType()]++] = locked;
+		}
+
+		currentPiece = preview[previewHead];
+		currentShape = currentPiece.getShape();
+		landingValid = false;
+		fallCredit = 0;
+		restFrames = 0;
+		preview[previewHead] = generatePiece();
+		previewHead = previewHead + 1 == preview.length ? 0 : previewHead + 1;
+	}
+
+	/**
+	 * Resolves one round of a cascade: every cluster of blocks falls until
+	 * it rests on the floor or on another cluster, and the lines they fill
+	 * are cleared and scored.
+	 *
+	 * @return true if lines were cleared, in which case the blocks above
+	 * them may fall again.
+	 * @see Playfield#settle()
+	 */
+	private boolean cascadeRound() {
+		if (!playfield.settle()) return false;
+		return scoreLines(playfield.clearFullRows()) > 0;
+	}
+
+	/**
+	 * Adds a complete piece representation to the playfield. Every solid
+	 * block of the piece's shape is stored in the playfield along with the
+	 * sprite ID of the piece, so that when we draw the tiles, we know which
+	 * sprites to use.
+	 *
+	 * @param 	piece	-	the Piece to be stored on the board
+	 * @see		Piece
+	 */
+	private void addPiece(Piece piece) {
+		if (!playfield.lock(piece.getShape(), piece.getRotation(), piece.getX(), piece.getY(), piece.getSpriteID())) {
+			/* If we have reached the top of the board and cannot add any more
+			 * tiles, then it's game over man, game over! */
+			isOver = true;
+		}
+	}
+
+	/**
+	 * Deletes all the lines filled by the piece that was just added to the
+	 * board. Only the rows the piece touched can have been filled, so only
+	 * those are checked. In classic mode, a line is deleted regardless of the
+	 * color of the blocks that fill it. Practice and cascade modes play by
+	 * the classic rules. In hardcore mode, a line must be filled with blocks
+	 * of the same color in order to be cleared (good luck with that!).
+	 * <p>
+	 * All the lines are removed from the playfield at once, and the score,
+	 * lines and level are then updated once for the whole lock.
+	 *
+	 * @param piece - the Piece that was just added to the board
+	 * @return the number of lines deleted.
+	 */
+	private int deletePossibleLines(Piece piece) {
+		boolean hardcore = gameMode.equals("Hardcore");
+		if (!hardcore && !gameMode.equals("Classic") && !gameMode.equals("Practice")
+				&& !gameMode.equals("Cascade")) return 0;
+
+		int top = piece.getY() + currentShape.getMinRow(piece.getRotation());
+		int bottom = piece.getY() + currentShape.getMaxRow(piece.getRotation());
+		return scoreLines(Integer.bitCount(playfield.clearLines(top, bottom, hardcore)));
+	}
+
+	/**
+	 * Updates the score, lines and level once for all the lines cleared at
+	 * once.
+	 *
+	 * @param lines - the number of lines cleared
+	 * @return the number of lines cleared.
+	 */
+	private int scoreLines(int lines) {
+		if (lines == 0) return 0;
+
+		// Update score, lines and level once for all the lines deleted
+		playerScore += SCORE_MULTIPLIER * lines;
+		linesClear += lines;
+		linesLeft -= lines;
+		// If we cleared the number of lines required to advance level,
+		// increment the game level and reset linesLeft.
+		while (linesLeft <= 0) {
+			gameLevel++;
+			linesLeft += LINES_PER_LEVEL;
+		}
+		gravity = gravityForLevel(gameLevel);
+		return lines;
+	}
+
+	/**
+	 * Adds rows of garbage at the bottom of the board, pushing the stack up,
+	 * as versus and dig modes do. If the current piece overlaps the garbage,
+	 * it is pushed up with the stack until it fits. If any block is pushed
+	 * above the board, the game is over.
+	 *
+	 * @param lines - 		the number of garbage rows
+	 * @param hole - 		the column left empty in every garbage row, from 0
+	 * 						to the number of columns - 1
+	 * @param spriteID - 	sprite ID of the garbage blocks
+	 * @throws IllegalArgumentException if the hole is outside the board
+	 * @see					Playfield#addGarbage(int, int, int)
+	 */
+	public void addGarbage(int lines, int hole, int spriteID) {
+		if (hole < 0 || hole >= playfield.COLUMNS) {
+			throw new IllegalArgumentException("Garbage hole must be in columns 0 to " + (playfield.COLUMNS - 1)
+					+ ", got " + hole);
+		}
+		if (isOver || lines <= 0) return;
+
+		if (!playfield.addGarbage(Math.min(lines, playfield.ROWS), hole, spriteID)) {
+			isOver = true;
+		}
+		// During a cascade, the current piece is already part of the stack
+		while (!cascading && !canMove(currentPiece.getRotation(), currentPiece.getX(), currentPiece.getY())) {
+			currentPiece.setY(currentPiece.getY() - 1);
+		}
+		landingValid = false;
+	}
+
+	/**
+	 * Checks if the game can be saved into snapshots. The pieces of a
+	 * snapshot are packed into PieceStates, which only cover boards of up to
+	 * 2048 columns and rows, so larger boards can't be saved, undone or
+	 * searched by the computer players.
+	 *
+	 * @return true if the board is small enough to be saved.
+	 * @see PieceState#fits(int, int)
+	 */
+	public boolean canSnapshot() {
+		return PieceState.fits(playfield.COLUMNS, playfield.ROWS);
+	}
+
+	// Getter methods
+	public Playfield getPlayfield() {
+		return this.playfield;
+	}
+
+	public int getColumns() {
+		return playfield.COLUMNS;
+	}
+
+	public int getRows() {
+		return playfield.ROWS;
+	}
+
+	public int getPlayerScore() {
+		return this.playerScore;
+	}
+
+	public int getLinesClear() {
+		return this.linesClear;
+	}
+
+	public int getLinesLeft() {
+		return this.linesLeft;
+	}
+
+	public int getGameLevel() {
+		return this.gameLevel;
+	}
+
+	// Gravity of the current level, in 16.16 fixed point rows per frame
+	public int getGravity() {
+		return this.gravity;
+	}
+
+	public String getGameMode() {
+		return this.gameMode;
+	}
+
+	public boolean isOver() {
+		return this.isOver;
+	}
+
+	public boolean isCascading() {
+		return this.cascading;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the game: the hash of the playfield
+	 * combined with the key of the current piece type. Two games with the
+	 * same filled tiles and the same current piece type have the same hash.
+	 *
+	 * @return the hash of the game.
+	 * @see Zobrist
+	 */
+	public long getHash() {
+		return playfield.getHash() ^ Zobrist.getPieceKey(currentPiece.getType());
+	}
+
+	/**
+	 * @return the packed state of the current piece.
+	 * @see PieceState
+	 */
+	public int getPieceState() {
+		return PieceState.of(currentPiece);
+	}
+
+	public Piece getCurrentPiece() {
+		return this.currentPiece;
+	}
+
+	public Piece getNextPiece() {
+		return this.preview[previewHead];
+	}
+
+	// Number of upcoming pieces known in advance
+	public int getPreviewSize() {
+		return this.preview.length;
+	}
+
+	/**
+	 * @param index - the position of the piece in the queue, 0 for the next
+	 * piece
+	 * @return the upcoming piece at the given position.
+	 * @throws IndexOutOfBoundsException if the index is not in the queue
+	 */
+	public Piece getPreviewPiece(int index) {
+		if (index < 0 || index >= preview.length) {
+			throw new IndexOutOfBoundsException("Preview index " + index + " out of range 0 to " + (preview.length - 1));
+		}
+		return this.preview[previewSlot(index)];
+	}
+
+	// Slot of the ring buffer holding the upcoming piece at the given index
+	private int previewSlot(int index) {
+		int slot = previewHead + index;
+		return slot < preview.length ? slot : slot - preview.length;
+	}
+	
+	public Randomizer getRandomizer() {
+		return this.randomizer;
+	}
+
+	// Setter methods
+	public void setGameMode(String gameMode) {
+		this.gameMode = gameMode;
+	}
+}
@@ -0,0 +1,79 @@
+package com.phixyn.tetrisphix.engine;
+
+/**
+ * Reusable buffer holding the whole state of a game: the playfield, the
+ * score, lines and level, the current and upcoming pieces and the state of the
+ * randomizer. A game engine saves its state into a snapshot and can later be
+ * restored to it, any number of times.
+ * <p>
+ * A snapshot allocates its buffers on the first save only. Every later save
+ * or restore with the same kind of randomizer copies the state in place,
+ * so that searches, rollbacks and undo can branch and rewind a game
+ * thousands of times per second.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		GameEngine#saveSnapshot(GameSnapshot)
+ * @see		GameEngine#restoreSnapshot(GameSnapshot)
+ */
+public class GameSnapshot {
+
+	// The board's grid, created on the first save at the size of the game
+	Playfield playfield;
+
+	// Game data and information
+	int playerScore;
+	int linesClear;
+	int linesLeft;
+	int gameLevel;
+	String gameMode;
+	boolean isOver;
+	boolean cascading;
+
+	// Gravity added up and frames rested by the current piece
+	int fallCredit;
+	int restFrames;
+
+	// Packed state and sprite ID of the current piece
+	int currentPiece;
+	int currentSpriteID;
+
+	// Packed states and sprite IDs of the upcoming pieces, next piece first,
+	// created on the first save at the size of the game's preview
+	int[] preview;
+	int[] previewSpriteIDs;
+
+	// Copy of the randomizer, created on the first save
+	Randomizer randomizer;
+
+	// Whether a game has been saved into this snapshot
+	boolean saved;
+
+	/**
+	 * @return true if a game has been saved into this snapshot.
+	 */
+	public boolean isSaved() {
+		return saved;
+	}
+
+	// Getter methods, to inspect a snapshot without restoring it
+	public Playfield getPlayfield() {
+		return playfield;
+	}
+
+	public int getPlayerScore() {
+		return playerScore;
+	}
+
+	public int getLinesClear() {
+		return linesClear;
+	}
+
+	public int getGameLevel() {
+		return gameLevel;
+	}
+
+	public boolean isOver() {
+		return isOver;
+	}
+}
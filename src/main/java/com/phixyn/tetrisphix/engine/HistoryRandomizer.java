@@ -0,0 +1,112 @@
+package com.phixyn.tetrisphix.engine;
+
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+import com.phixyn.tetrisphix.piece.PieceSet;
+
+/**
+ * Randomizer in the style of The Grand Master games. It remembers the last 4
+ * pieces it dealt and, when it picks a piece that is in that history, it
+ * tries again up to a fixed number of times. This makes long droughts and
+ * repeated pieces rare, while keeping the sequence unpredictable.
+ * <p>
+ * As in TGM, the history starts filled with S and Z pieces and the first
+ * piece is never a Square, S or Z piece, so that the player never has to
+ * start with an overhang. With another piece set, any piece can come first.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Randomizer
+ */
+public class HistoryRandomizer extends SeededRandomizer {
+
+	// Number of pieces remembered
+	private final int HISTORY_SIZE = 4;
+
+	// Number of rolls before accepting a piece that is in the history
+	private final int tries;
+
+	// The last pieces dealt, used as a circular buffer
+	private final int[] history = new int[HISTORY_SIZE];
+	private int historyStart;
+
+	// Whether the next piece is the first of the sequence
+	private boolean first;
+
+	/**
+	 * Creates a randomizer with 6 tries, as in TGM2.
+	 *
+	 * @param pieceCount - 	the number of piece types to choose from
+	 * @param seed - 		the seed of the sequence
+	 */
+	public HistoryRandomizer(int pieceCount, long seed) {
+		this(pieceCount, seed, 6);
+	}
+
+	/**
+	 * @param pieceCount - 	the number of piece types to choose from
+	 * @param seed - 		the seed of the sequence
+	 * @param tries - 		the number of rolls per piece, 4 in TGM1
+	 */
+	public HistoryRandomizer(int pieceCount, long seed, int tries) {
+		super(pieceCount, seed);
+		this.tries = tries;
+		reset();
+	}
+
+	@Override
+	protected void reset() {
+		history[0] = PieceRegistry.Z;
+		history[1] = PieceRegistry.S;
+		history[2] = PieceRegistry.S;
+		history[3] = PieceRegistry.Z;
+		historyStart = 0;
+		first = true;
+	}
+
+	@Override
+	public Randomizer copy() {
+		HistoryRandomizer copy = new HistoryRandomizer(pieceCount, getSeed(), tries);
+		copy.copyFrom(this);
+		return copy;
+	}
+
+	@Override
+	public void copyFrom(Randomizer other) {
+		super.copyFrom(other);
+		HistoryRandomizer historyRandomizer = (HistoryRandomizer) other;
+		System.arraycopy(historyRandomizer.history, 0, history, 0, HISTORY_SIZE);
+		historyStart = historyRandomizer.historyStart;
+		first = historyRandomizer.first;
+	}
+
+	@Override
+	public int nextPiece() {
+		int piece;
+		if (first) {
+			first = false;
+			// Never start with a piece that can only create an overhang
+			do {
+				piece = nextInt(pieceCount);
+			} while (PieceRegistry.getPieceSet() == PieceSet.TETROMINOES && pieceCount > PieceRegistry.Z
+					&& (piece == PieceRegistry.SQUARE || piece == PieceRegistry.S || piece == PieceRegistry.Z));
+		}
+		else {
+			piece = nextInt(pieceCount);
+			for (int i = 1; i < tries && inHistory(piece); i++) {
+				piece = nextInt(pieceCount);
+			}
+		}
+
+		// Replace the oldest piece in the history
+		history[historyStart] = piece;
+		historyStart = (historyStart + 1) % HISTORY_SIZE;
+		return piece;
+	}
+
+	private boolean inHistory(int piece) {
+		for (int i = 0; i < HISTORY_SIZE; i++) {
+			if (history[i] == piece) return true;
+		}
+		return false;
+	}
+}
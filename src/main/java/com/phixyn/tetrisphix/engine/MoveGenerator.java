@@ -0,0 +1,174 @@
+package com.phixyn.tetrisphix.engine;
+
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Enumerates every final placement a piece can reach from a given position,
+ * including tucks under overhangs and spins, by performing a breadth first
+ * search over the (column, row, rotation) states of the piece. Moving left,
+ * moving right, rotating and moving down one row are the possible inputs,
+ * as in the game. A state where the piece can't move down is a placement.
+ * <p>
+ * The generator owns all of its buffers, so that a search does not allocate
+ * anything once the PlacementList has grown to its working size. A generator
+ * must not be shared between threads.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		PlacementList
+ * @see		Playfield
+ */
+public class MoveGenerator {
+
+	// Inputs, as stored in the paths of a PlacementList
+	public static final int LEFT = 0;
+	public static final int RIGHT = 1;
+	public static final int ROTATE = 2;
+	public static final int DOWN = 3;
+	// Hard drop, used in place of the DOWN inputs at the end of a path
+	public static final int DROP = 4;
+
+	// Offsets and ranges of the columns and rows a piece can be at. Parts of
+	// a piece's matrix can be outside of the grid.
+	private final int X_OFFSET = PieceShape.SIZE - 1;
+	private final int Y_OFFSET = PieceShape.SIZE;
+	private final int X_RANGE;
+	private final int Y_RANGE;
+
+	// Visited states, one bit per state
+	private final long[] visited;
+
+	/* Queue of the search, and the state and input each state was reached
+	 * from. Every visited state is queued, so the states queued by the last
+	 * search are the only bits set in visited. */
+	private final int[] queue;
+	private int queued;
+	private final int[] parents;
+	private final byte[] parentInputs;
+
+	// Inputs of a path, in reverse order, while it is being rebuilt
+	private final byte[] reversePath;
+
+	/**
+	 * Creates a generator for playfields of the given size.
+	 *
+	 * @param columns - 	the number of columns of the playfields
+	 * @param rows - 		the number of rows of the playfields
+	 */
+	public MoveGenerator(int columns, int rows) {
+		X_RANGE = columns + X_OFFSET;
+		Y_RANGE = rows + Y_OFFSET;
+		int states = X_RANGE * Y_RANGE * PieceShape.MAX_ROTATIONS;
+		this.visited = new long[(states + 63) / 64];
+		this.queue = new int[states];
+		this.parents = new int[states];
+		this.parentInputs = new byte[states];
+		this.reversePath = new byte[states];
+	}
+
+	/**
+	 * Finds every final placement of a piece that can be reached from the
+	 * given position, along with the shortest list of inputs leading to it.
+	 * The trailing DOWN inputs of each path are replaced by a single DROP.
+	 *
+	 * @param field - 		the playfield
+	 * @param shape - 		the shape of the piece
+	 * @param rotation - 	initial rotation of the piece
+	 * @param x - 			initial column of the piece
+	 * @param y - 			initial row of the piece
+	 * @param out - 		the list where the placements are stored, which is
+	 * 						cleared first
+	 * @return				the number of placements found.
+	 */
+	public int generate(Playfield field, PieceShape shape, int rotation, int x, int y, PlacementList out) {
+		out.clear();
+		if (y < -Y_OFFSET || !field.canPlace(shape, rotation, x, y)) return 0;
+
+		// Unmark the states visited by the last search, rather than clearing
+		// the words of every state the piece could be in
+		for (int i = 0; i < queued; i++) {
+			visited[queue[i] >>> 6] = 0L;
+		}
+		queued = 0;
+		int rotations = shape.getRotations();
+		int head = 0, tail = 0;
+
+		int start = index(x, y, rotation);
+		visit(start);
+		parents[start] = -1;
+		queue[tail++] = start;
+		queued = tail;
+
+		while (head < tail) {
+			int state = queue[head++];
+			int sx = state % X_RANGE - X_OFFSET;
+			int sy = (state / X_RANGE) % Y_RANGE - Y_OFFSET;
+			int srot = state / (X_RANGE * Y_RANGE);
+
+			tail = tryState(field, shape, state, sx - 1, sy, srot, LEFT, tail);
+			tail = tryState(field, shape, state, sx + 1, sy, srot, RIGHT, tail);
+			int nextRotation = (srot + 1) % rotations;
+			if (nextRotation != srot) {
+				tail = tryState(field, shape, state, sx, sy, nextRotation, ROTATE, tail);
+			}
+
+			if (field.canPlace(shape, srot, sx, sy + 1)) {
+				tail = tryState(field, shape, state, sx, sy + 1, srot, DOWN, tail);
+			}
+			else {
+				addPlacement(state, sx, sy, srot, out);
+			}
+		}
+		return out.size();
+	}
+
+	/**
+	 * Queues a state if it has not been visited and the piece fits in it.
+	 *
+	 * @return the new tail of the queue.
+	 */
+	private int tryState(Playfield field, PieceShape shape, int from, int x, int y, int rotation, int input, int tail) {
+		if (!field.canPlace(shape, rotation, x, y)) return tail;
+
+		int state = index(x, y, rotation);
+		if ((visited[state >>> 6] & (1L << state)) != 0) return tail;
+
+		visit(state);
+		parents[state] = from;
+		parentInputs[state] = (byte) input;
+		queue[tail] = state;
+		queued = tail + 1;
+		return queued;
+	}
+
+	/**
+	 * Adds a placement to the list, rebuilding its path from the parents of
+	 * its state.
+	 */
+	private void addPlacement(int state, int x, int y, int rotation, PlacementList out) {
+		int length = 0;
+		for (int s = state; parents[s] >= 0; s = parents[s]) {
+			reversePath[length++] = parentInputs[s];
+		}
+
+		// Drop the trailing DOWN inputs, which a hard drop replaces
+		int first = 0;
+		while (first < length && reversePath[first] == DOWN) {
+			first++;
+		}
+
+		out.addPlacement(x, y, rotation);
+		for (int i = length - 1; i >= first; i--) {
+			out.addInput(reversePath[i]);
+		}
+		if (first > 0) out.addInput(DROP);
+	}
+
+	private int index(int x, int y, int rotation) {
+		return (rotation * Y_RANGE + y + Y_OFFSET) * X_RANGE + x + X_OFFSET;
+	}
+
+	private void visit(int state) {
+		visited[state >>> 6] |= 1L << state;
+	}
+}
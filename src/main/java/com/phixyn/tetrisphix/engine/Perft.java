@@ -0,0 +1,239 @@
+package com.phixyn.tetrisphix.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Counts every sequence of placements that can be reached from a board with
+ * a known sequence of pieces, like the perft command of chess engines. The
+ * count at a given depth is the number of ways the first pieces of the
+ * sequence can be locked, one after the other, following the rules of the
+ * game engine: every placement found by the MoveGenerator is counted, but a
+ * board is not expanded further if the game would be over on it.
+ * <p>
+ * The count only depends on the collision, lock and line clear code, so it
+ * must stay the same whenever that code changes, and the time taken to
+ * compute it is a measure of their speed. It can be computed on a single
+ * thread or by splitting the top of the tree between the threads of a
+ * ForkJoinPool.
+ * <p>
+ * Usage: Perft [depth] [seed] [threads]
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		MoveGenerator
+ */
+public class Perft {
+
+	// Default settings, overridden by the command line arguments
+	private static final int DEFAULT_DEPTH = 3;
+	private static final long DEFAULT_SEED = 1;
+
+	// Subtrees of this depth or less are counted on a single thread
+	private static final int SEQUENTIAL_DEPTH = 2;
+
+	private final Playfield start;
+	private final Piece[] pieces;
+
+	// Buffers of each thread, one playfield and placement list per ply
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>();
+
+	/**
+	 * @param start - 	the board to count from, which is copied
+	 * @param pieces - 	the pieces to place, in order, each at its spawn
+	 * 					position. The depth of a count can't be larger than
+	 * 					the number of pieces.
+	 */
+	public Perft(Playfield start, Piece[] pieces) {
+		this.start = new Playfield(start.COLUMNS, start.ROWS);
+		this.start.copyFrom(start);
+		this.pieces = pieces.clone();
+	}
+
+	/**
+	 * Builds the sequence of pieces a game engine would spawn with a 7-bag
+	 * randomizer and the given seed.
+	 *
+	 * @param count - 	the number of pieces
+	 * @param seed - 	the seed of the randomizer
+	 * @return			the pieces, at their spawn positions.
+	 */
+	public static Piece[] pieceSequence(int count, long seed) {
+		Randomizer randomizer = new BagRandomizer(PieceRegistry.getPieceCount(), seed);
+		int columns = Playfield.DEFAULT_COLUMNS;
+		Piece[] pieces = new Piece[count];
+		for (int i = 0; i < count; i++) {
+			pieces[i] = PieceRegistry.create(randomizer.nextPiece());
+			pieces[i].setX(pieces[i].getX() + columns / 2);
+		}
+		return pieces;
+	}
+
+	/**
+	 * Counts the placements at the given depth on the calling thread.
+	 *
+	 * @param depth - the number of pieces to place
+	 * @return the number of placement sequences.
+	 */
+	public long count(int depth) {
+		checkDepth(depth);
+		return count(start, 0, depth, workspace());
+	}
+
+	/**
+	 * Counts the placements at the given depth, splitting the top of the
+	 * tree between the threads of a pool.
+	 *
+	 * @param depth - 	the number of pieces to place
+	 * @param pool - 	the pool in which the subtrees are counted
+	 * @return			the number of placement sequences.
+	 */
+	public long count(int depth, ForkJoinPool pool) {
+		checkDepth(depth);
+		return pool.invoke(new PerftTask(start, 0, depth));
+	}
+
+	private void checkDepth(int depth) {
+		if (depth < 1 || depth > pieces.length) {
+			throw new IllegalArgumentException("Depth must be between 1 and " + pieces.length + ", got " + depth);
+		}
+	}
+
+	/**
+	 * Counts the placements of the pieces from the given ply to the given
+	 * depth. The placements of the last piece are only generated, not
+	 * locked, since none of them is expanded.
+	 */
+	private long count(Playfield field, int ply, int depth, Workspace workspace) {
+		// The engine ends the game before the next piece locks
+		if (!field.isRowEmpty(0)) return 0;
+
+		Piece piece = pieces[ply];
+		PieceShape shape = piece.getShape();
+		PlacementList placements = workspace.placements[ply];
+		int n = workspace.generator.generate(field, shape, piece.getRotation(), piece.getX(), piece.getY(), placements);
+		if (ply == depth - 1) return n;
+
+		long total = 0;
+		Playfield child = workspace.fields[ply];
+		for (int i = 0; i < n; i++) {
+			child.copyFrom(field);
+			if (child.lockAndClear(shape, placements.getRotation(i), placements.getX(i), placements.getY(i),
+					piece.getSpriteID(), false) < 0) continue;
+			total += count(child, ply + 1, depth, workspace);
+		}
+		return total;
+	}
+
+	/**
+	 * @return the buffers of the calling thread.
+	 */
+	private Workspace workspace() {
+		Workspace workspace = workspaces.get();
+		if (workspace == null) {
+			workspace = new Workspace(start, pieces.length);
+			workspaces.set(workspace);
+		}
+		return workspace;
+	}
+
+	/**
+	 * Playfields, placement lists and move generator of a single thread.
+	 */
+	private static class Workspace {
+		final MoveGenerator generator;
+		final Playfield[] fields;
+		final PlacementList[] placements;
+
+		Workspace(Playfield field, int plies) {
+			generator = new MoveGenerator(field.COLUMNS, field.ROWS);
+			fields = new Playfield[plies];
+			placements = new PlacementList[plies];
+			for (int i = 0; i < plies; i++) {
+				fields[i] = new Playfield(field.COLUMNS, field.ROWS);
+				placements[i] = new PlacementList();
+			}
+		}
+	}
+
+	/**
+	 * Task counting a subtree. It forks a task for every child of its board
+	 * until the subtrees are small enough to be counted on a single thread.
+	 */
+	private class PerftTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Playfield field;
+		private final int ply, depth;
+
+		PerftTask(Playfield field, int ply, int depth) {
+			this.field = field;
+			this.ply = ply;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			if (depth - ply <= SEQUENTIAL_DEPTH) {
+				return count(field, ply, depth, workspace());
+			}
+			if (!field.isRowEmpty(0)) return 0L;
+
+			Piece piece = pieces[ply];
+			PieceShape shape = piece.getShape();
+			PlacementList placements = new PlacementList();
+			int n = workspace().generator.generate(field, shape, piece.getRotation(), piece.getX(), piece.getY(), placements);
+
+			// Each child task owns its board, since it may run on another thread
+			List<PerftTask> children = new ArrayList<PerftTask>();
+			for (int i = 0; i < n; i++) {
+				Playfield child = new Playfield(field.COLUMNS, field.ROWS);
+				child.copyFrom(field);
+				if (child.lockAndClear(shape, placements.getRotation(i), placements.getX(i), placements.getY(i),
+						piece.getSpriteID(), false) < 0) continue;
+				children.add(new PerftTask(child, ply + 1, depth));
+			}
+
+			long total = 0;
+			for (PerftTask task : invokeAll(children)) {
+				total += task.join();
+			}
+			return total;
+		}
+	}
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		Perft perft = new Perft(new Playfield(), pieceSequence(depth, seed));
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		for (int d = 1; d <= depth; d++) {
+			long start = System.nanoTime();
+			long nodes = perft.count(d);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			long parallelNodes = perft.count(d, pool);
+			double parallelSeconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.println(String.format(Locale.ROOT,
+					"[INFO] perft(%d) = %d, %.0f nodes/s on 1 thread, %.0f nodes/s on %d threads",
+					d, nodes, nodes / seconds, parallelNodes / parallelSeconds, threads));
+			if (nodes != parallelNodes) {
+				System.out.println("[ERROR] Parallel count differs: " + parallelNodes);
+			}
+		}
+		pool.shutdown();
+	}
+}
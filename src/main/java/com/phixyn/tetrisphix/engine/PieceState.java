@@ -0,0 +1,225 @@
+package com.phixyn.tetrisphix.engine;
+
+import com.phixyn.tetrisphix.piece.Piece;
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Packed representation of a piece's type, rotation, column and row in a
+ * single int, along with static methods to move, rotate and test such a
+ * state against a playfield. Unlike Piece objects, states can be stored by
+ * the million in plain int arrays, which suits search frontiers, replays and
+ * network messages.
+ * <p>
+ * The bits of a state are laid out as follows, from the lowest:
+ * <ul>
+ * <li>bits 0 to 11 - the column, plus 2048;</li>
+ * <li>bits 12 to 23 - the row, plus 2048;</li>
+ * <li>bits 24 and 25 - the rotation;</li>
+ * <li>bits 26 to 31 - the type, one of the PieceRegistry constants.</li>
+ * </ul>
+ * The value NONE, which is never a valid state, is returned by the methods
+ * that fail to move a piece.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Piece
+ * @see		PieceRegistry
+ */
+public final class PieceState {
+
+	// Value returned when a move is not possible
+	public static final int NONE = -1;
+
+	// Width of each field and offset added to the coordinates
+	private static final int COORD_BITS = 12;
+	private static final int COORD_OFFSET = 1 << (COORD_BITS - 1);
+	private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+	private static final int ROTATION_SHIFT = 2 * COORD_BITS;
+	private static final int ROTATION_MASK = 3;
+	private static final int TYPE_SHIFT = ROTATION_SHIFT + 2;
+
+	private PieceState() {
+	}
+
+	/**
+	 * Checks if every position of a piece on a board of the given size can
+	 * be packed. Larger boards can be played, but their pieces can't be
+	 * stored as states, which snapshots and searches rely on.
+	 *
+	 * @param columns - 	the number of columns of the board
+	 * @param rows - 		the number of rows of the board
+	 * @return				true if the board is small enough.
+	 */
+	public static boolean fits(int columns, int rows) {
+		return columns <= COORD_OFFSET && rows <= COORD_OFFSET;
+	}
+
+	/**
+	 * Packs a piece's state into an int.
+	 *
+	 * @param type - 		the piece type, from 0 to 62
+	 * @param rotation - 	the rotation, from 0 to 3
+	 * @param x - 			the column, from -2048 to 2047
+	 * @param y - 			the row, from -2048 to 2047
+	 * @return				the packed state.
+	 */
+	public static int pack(int type, int rotation, int x, int y) {
+		return type << TYPE_SHIFT
+				| rotation << ROTATION_SHIFT
+				| (y + COORD_OFFSET) << COORD_BITS
+				| (x + COORD_OFFSET);
+	}
+
+	/**
+	 * @param piece - the piece
+	 * @return the packed state of the piece.
+	 */
+	public static int of(Piece piece) {
+		return pack(piece.getType(), piece.getRotation(), piece.getX(), piece.getY());
+	}
+
+	/**
+	 * Returns the state of a new piece of the given type, centered on a
+	 * board of the given width, as spawned by the game engine.
+	 *
+	 * @param type - 		the piece type
+	 * @param columns - 	the number of columns of the board
+	 * @return				the packed state.
+	 */
+	public static int spawn(int type, int columns) {
+		return pack(type, 0, Piece.SPAWN_POSITION + columns / 2, Piece.SPAWN_POSITION);
+	}
+
+	/**
+	 * Moves and rotates a piece to the given state. The piece must be of
+	 * the state's type.
+	 *
+	 * @param state - the packed state
+	 * @param piece - the piece to update
+	 */
+	public static void apply(int state, Piece piece) {
+		piece.setX(getX(state));
+		piece.setY(getY(state));
+		piece.setRotation(getRotation(state));
+	}
+
+	// Getter methods
+	public static int getType(int state) {
+		return state >>> TYPE_SHIFT;
+	}
+
+	public static int getRotation(int state) {
+		return (state >>> ROTATION_SHIFT) & ROTATION_MASK;
+	}
+
+	public static int getX(int state) {
+		return (state & COORD_MASK) - COORD_OFFSET;
+	}
+
+	public static int getY(int state) {
+		return ((state >>> COORD_BITS) & COORD_MASK) - COORD_OFFSET;
+	}
+
+	public static PieceShape getShape(int state) {
+		return PieceRegistry.getShape(getType(state));
+	}
+
+	/**
+	 * Moves a state by the given number of columns and rows, without
+	 * checking for collisions.
+	 *
+	 * @param state - 	the packed state
+	 * @param dx - 		the number of columns to move right
+	 * @param dy - 		the number of rows to move down
+	 * @return			the moved state.
+	 */
+	public static int translate(int state, int dx, int dy) {
+		return state + (dy << COORD_BITS) + dx;
+	}
+
+	/**
+	 * Rotates a state to the next rotation of its piece, without checking
+	 * for collisions.
+	 *
+	 * @param state - the packed state
+	 * @return the rotated state.
+	 */
+	public static int rotate(int state) {
+		int rotation = (getRotation(state) + 1) % getShape(state).getRotations();
+		return (state & ~(ROTATION_MASK << ROTATION_SHIFT)) | rotation << ROTATION_SHIFT;
+	}
+
+	/**
+	 * Checks if a piece in the given state fits on a playfield.
+	 *
+	 * @param field - the playfield
+	 * @param state - the packed state
+	 * @return true if the piece does not collide with anything.
+	 */
+	public static boolean canPlace(Playfield field, int state) {
+		return field.canPlace(getShape(state), getRotation(state), getX(state), getY(state));
+	}
+
+	/**
+	 * Moves a state by the given number of columns and rows, if the piece
+	 * fits there.
+	 *
+	 * @param field - 	the playfield
+	 * @param state - 	the packed state
+	 * @param dx - 		the number of columns to move right
+	 * @param dy - 		the number of rows to move down
+	 * @return			the moved state, or NONE if the piece collides.
+	 */
+	public static int tryMove(Playfield field, int state, int dx, int dy) {
+		int moved = translate(state, dx, dy);
+		return canPlace(field, moved) ? moved : NONE;
+	}
+
+	/**
+	 * Rotates a state, if the piece fits in its next rotation. Like the game
+	 * engine, a piece with a single rotation can't be rotated.
+	 *
+	 * @param field - the playfield
+	 * @param state - the packed state
+	 * @return the rotated state, or NONE if the piece can't rotate.
+	 */
+	public static int tryRotate(Playfield field, int state) {
+		if (getShape(state).getRotations() <= 1) return NONE;
+		int rotated = rotate(state);
+		return canPlace(field, rotated) ? rotated : NONE;
+	}
+
+	/**
+	 * Moves a state down as far as the piece can go.
+	 *
+	 * @param field - the playfield
+	 * @param state - the packed state, which must fit on the playfield
+	 * @return the state once the piece has landed.
+	 */
+	public static int drop(Playfield field, int state) {
+		int y = getY(state);
+		int landingRow = field.dropRow(getShape(state), getRotation(state), getX(state), y);
+		return translate(state, 0, landingRow - y);
+	}
+
+	/**
+	 * Locks a piece in the given state into a playfield and clears the lines
+	 * it fills, including the lines of a cascade in cascade mode.
+	 *
+	 * @param field - 			the playfield
+	 * @param state - 			the packed state
+	 * @param spriteID - 		sprite ID of the piece's blocks
+	 * @param sameColorOnly - 	whether rows must be of a single color to be
+	 * 							cleared, as in hardcore mode
+	 * @param cascade - 		whether blocks fall after a line clear, as in
+	 * 							cascade mode
+	 * @return					the number of lines cleared, or -1 if any
+	 * 							block was above the grid.
+	 * @see						Playfield#lockAndClear
+	 */
+	public static int lock(Playfield field, int state, int spriteID, boolean sameColorOnly, boolean cascade) {
+		return field.lockAndClear(getShape(state), getRotation(state), getX(state), getY(state),
+				spriteID, sameColorOnly, cascade);
+	}
+}
@@ -0,0 +1,103 @@
+package com.phixyn.tetrisphix.engine;
+
+import java.util.Arrays;
+
+/**
+ * Compact list of the final placements of a piece, as found by the
+ * MoveGenerator. Each placement is packed in a single int, and the inputs
+ * leading to it are stored one byte per input in a single shared array.
+ * A list can be reused for several calls to the generator; its arrays only
+ * grow and are never reallocated otherwise.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		MoveGenerator
+ */
+public class PlacementList {
+
+	// Offset added to the column and row so that they fit in 12 unsigned bits
+	private static final int COORD_OFFSET = 0x800;
+
+	// Number of placements in the list
+	private int size;
+
+	// Packed placements: rotation << 24 | (row + offset) << 12 | (column + offset)
+	private int[] placements = new int[64];
+
+	// Start of each placement's path in the inputs array. The path of
+	// placement i ends where the path of placement i + 1 starts.
+	private int[] pathStarts = new int[65];
+
+	// Inputs of all the paths, one after the other
+	private byte[] inputs = new byte[1024];
+
+	/**
+	 * Empties the list, keeping its arrays.
+	 */
+	public void clear() {
+		size = 0;
+		pathStarts[0] = 0;
+	}
+
+	/**
+	 * Starts a new placement. Its inputs must be added with addInput before
+	 * the next placement is started.
+	 *
+	 * @param x - 			column of the piece
+	 * @param y - 			row of the piece
+	 * @param rotation - 	rotation of the piece
+	 */
+	void addPlacement(int x, int y, int rotation) {
+		if (size == placements.length) {
+			placements = Arrays.copyOf(placements, size * 2);
+			pathStarts = Arrays.copyOf(pathStarts, size * 2 + 1);
+		}
+		placements[size] = rotation << 24 | (y + COORD_OFFSET) << 12 | (x + COORD_OFFSET);
+		size++;
+		pathStarts[size] = pathStarts[size - 1];
+	}
+
+	/**
+	 * Appends an input to the path of the last placement.
+	 *
+	 * @param input - one of the MoveGenerator input constants
+	 */
+	void addInput(int input) {
+		int end = pathStarts[size];
+		if (end == inputs.length) {
+			inputs = Arrays.copyOf(inputs, end * 2);
+		}
+		inputs[end] = (byte) input;
+		pathStarts[size] = end + 1;
+	}
+
+	// Getter methods
+	public int size() {
+		return this.size;
+	}
+
+	public int getX(int index) {
+		return (placements[index] & 0xFFF) - COORD_OFFSET;
+	}
+
+	public int getY(int index) {
+		return ((placements[index] >>> 12) & 0xFFF) - COORD_OFFSET;
+	}
+
+	public int getRotation(int index) {
+		return placements[index] >>> 24;
+	}
+
+	public int getPathLength(int index) {
+		return pathStarts[index + 1] - pathStarts[index];
+	}
+
+	/**
+	 * @param index - 	the placement
+	 * @param step - 	the position of the input in the placement's path
+	 * @return one of the MoveGenerator input constants.
+	 */
+	public int getInput(int index, int step) {
+		return inputs[pathStarts[index] + step];
+	}
+}
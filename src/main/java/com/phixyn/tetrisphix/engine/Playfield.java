@@ -0,0 +1,1041 @@
+package com.phixyn.tetrisphix.engine;
+
+import java.util.Arrays;
+
+import com.phixyn.tetrisphix.piece.PieceShape;
+
+/**
+ * Representation of the board's grid used by the game engine. The grid is
+ * stored as an occupancy bitboard, with one or more long words per row, along
+ * with a separate color plane holding the sprite ID of every filled tile.
+ * The size of the grid is chosen when the playfield is created, from the
+ * usual 10 by 20 up to boards of thousands of columns and hundreds of
+ * thousands of rows.
+ * <p>
+ * Rows are stored in a ring buffer: the row at the top of the grid can be
+ * at any place in the arrays, and the others follow it, wrapping around at
+ * the end. Clearing lines only moves the rows on the shorter side of the
+ * cleared lines, and adding garbage at the bottom of the grid, which pushes
+ * every row up, only moves where the top of the grid is.
+ * <p>
+ * Every operation only visits the rows it touches and, for clearing lines,
+ * adding garbage and copying, the rows of the stack, from the top of the
+ * highest column down to the floor. The empty rows above the stack are never
+ * visited, so a tall board costs its memory but not its time.
+ * <p>
+ * This class does not know anything about game rules. It simply answers
+ * questions about which tiles are filled, whether a piece shape fits, and
+ * provides the operations needed to change them.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		GameEngine
+ */
+public class Playfield {
+
+	// Size of the grid used by the default constructor
+	public static final int DEFAULT_COLUMNS = 10;
+	public static final int DEFAULT_ROWS = 20;
+
+	// Grid's columns and rows
+	public final int COLUMNS;
+	public final int ROWS;
+
+	/* Number of unused bits before the first column in the words of a row.
+	 * A piece can hang up to SIZE - 1 columns outside the board with the
+	 * empty part of its matrix, up to 5 by 5, so its row masks are shifted
+	 * from a column that many bits to the left of the first one. */
+	public final int WALL_WIDTH = PieceShape.SIZE;
+
+	// Number of long words per row of the bitboard
+	private final int WORDS;
+
+	/* Occupancy bitboard representing the state of the grid, with WORDS
+	 * longs per row. Bit (WALL_WIDTH + column) of a row is set if the tile
+	 * at that column is filled with a block. A piece's bounding box is kept
+	 * inside the walls before its rows are tested, so collision against
+	 * other blocks is a single AND per row of a piece, or two where the
+	 * piece straddles two words. */
+	private final long[] rowWords;
+
+	// Words of a row where every tile is filled, used for garbage rows
+	private final long[] fullRow;
+
+	// Grids of up to this many words are copied whole
+	private static final int SMALL_GRID_WORDS = 256;
+
+	/* Number of filled tiles in each row, so that a row is known to be
+	 * full or empty in constant time, whatever the width of the grid. */
+	private final int[] rowCounts;
+
+	/* Color plane of the grid, with one array per row. If a value is above
+	 * 0, then the number is the sprite ID of the block plus 1 or, in other
+	 * words, its color. A row's array is only allocated once a block is
+	 * stored in it, and it is only read where the bitboard has a block, so
+	 * it does not need to be cleared when the row is emptied. */
+	private final byte[][] colorRows;
+
+	/* Color shared by every block of each row: 0 if the row is empty,
+	 * MIXED_ROW if its blocks are not all the same color. It is updated
+	 * whenever a tile is filled and moves with its row, so a full row's
+	 * count and color tell in constant time whether it can be cleared in
+	 * hardcore mode. */
+	private static final byte MIXED_ROW = -1;
+	private final byte[] rowColors;
+
+	// Place in the ring buffer of the top row of the grid
+	private int ringStart;
+
+	/* Skyline of the grid. The height of a column is the number of rows
+	 * from the floor up to and including its top most block, or 0 if the
+	 * column is empty. Every tile above a column's height is empty. It is
+	 * updated when blocks are added, when rows are removed and when blocks
+	 * fall. */
+	private final int[] heights;
+
+	/* Zobrist hash of the occupancy of the grid. Each row has a hash, the
+	 * XOR of the keys of its filled columns, which is mixed with the key of
+	 * the row's place in the grid, and the hash of the grid is the XOR of
+	 * the mixed hashes of its non-empty rows. Filling a tile or moving a row
+	 * only changes the hash of one row, so the hash is kept up to date with
+	 * a few operations per tile or per row moved. */
+	private final long[] columnKeys;
+	private final long[] rowKeys;
+	private final long[] rowHashes;
+	private long hash;
+
+	/* Work arrays of settle(), indexed by the tiles of the stack from its top
+	 * row. They are allocated the first time blocks are settled, grown with
+	 * the stack, and never copied. */
+	private int[] clusterParent;	// Union-find parent of each block
+	private int[] clusterFall;		// Rows each cluster falls, by root block
+	private int[] clusterFirst;		// First block of each cluster, by root
+	private int[] clusterNext;		// Next block of the same cluster, or -1
+	private long[] fallQueue;		// Heap of (fall << 32 | root) entries
+
+	/**
+	 * Creates an empty playfield of the default size.
+	 */
+	public Playfield() {
+		this(DEFAULT_COLUMNS, DEFAULT_ROWS);
+	}
+
+	/**
+	 * Creates an empty playfield of the given size.
+	 *
+	 * @param columns - 	the number of columns of the grid
+	 * @param rows - 		the number of rows of the grid
+	 */
+	public Playfield(int columns, int rows) {
+		if (columns < 1 || rows < 1) {
+			throw new IllegalArgumentException("Invalid playfield size: " + columns + " by " + rows);
+		}
+		this.COLUMNS = columns;
+		this.ROWS = rows;
+		this.WORDS = (WALL_WIDTH + columns + 63) >>> 6;
+
+		this.rowWords = new long[rows * WORDS];
+		this.fullRow = new long[WORDS];
+		for (int col = 0; col < columns; col++) {
+			fullRow[(WALL_WIDTH + col) >>> 6] |= 1L << (WALL_WIDTH + col);
+		}
+		this.rowCounts = new int[rows];
+		this.colorRows = new byte[rows][];
+		this.rowColors = new byte[rows];
+		this.heights = new int[columns];
+		this.columnKeys = Zobrist.getColumnKeys(columns);
+		this.rowKeys = Zobrist.getRowKeys(rows);
+		this.rowHashes = new long[rows];
+	}
+
+	/**
+	 * Empties every row of the grid. Only the rows of the stack are visited,
+	 * every row above them being empty already.
+	 */
+	public void clear() {
+		for (int row = ROWS - maxHeight(); row < ROWS; row++) {
+			emptyRow(row);
+		}
+		Arrays.fill(heights, 0);
+		ringStart = 0;
+		hash = 0;
+	}
+
+	/**
+	 * Empties the grid and moves the start of its ring buffer, so that a
+	 * grid rebuilt row by row keeps the layout of the grid it was saved from.
+	 *
+	 * @param ringStart - place in the ring buffer of the top row, from 0 to
+	 * ROWS - 1
+	 */
+	void clear(int ringStart) {
+		clear();
+		this.ringStart = ringStart;
+	}
+
+	/**
+	 * @return the place in the ring buffer of the top row of the grid. Row
+	 * r of the grid is stored at (ringStart + r) modulo ROWS.
+	 */
+	int getRingStart() {
+		return ringStart;
+	}
+
+	/**
+	 * Copies the whole state of another playfield of the same size into this
+	 * one, without allocating anything once every row of this playfield has
+	 * held a block. Only the rows of both stacks are copied.
+	 *
+	 * @param other - the playfield to copy
+	 */
+	public void copyFrom(Playfield other) {
+		if (other.COLUMNS != COLUMNS || other.ROWS != ROWS) {
+			throw new IllegalArgumentException("Can't copy a " + other.COLUMNS + " by " + other.ROWS
+					+ " playfield into a " + COLUMNS + " by " + ROWS + " playfield");
+		}
+		int otherHeight = other.maxHeight();
+		if (ROWS * WORDS <= SMALL_GRID_WORDS) {
+			// A small grid is cheaper to copy whole than row by row
+			System.arraycopy(other.rowWords, 0, rowWords, 0, rowWords.length);
+			System.arraycopy(other.rowCounts, 0, rowCounts, 0, ROWS);
+			System.arraycopy(other.rowColors, 0, rowColors, 0, ROWS);
+			System.arraycopy(other.rowHashes, 0, rowHashes, 0, ROWS);
+			ringStart = other.ringStart;
+			for (int row = ROWS - otherHeight; row < ROWS; row++) {
+				int slot = slot(row);
+				if (rowCounts[slot] > 0) {
+					System.arraycopy(other.colorRows[slot], 0, colorRow(slot), 0, COLUMNS);
+				}
+			}
+			System.arraycopy(other.heights, 0, heights, 0, COLUMNS);
+			hash = other.hash;
+			return;
+		}
+
+		// Empty this stack, then take the other's layout of the ring buffer
+		for (int row = ROWS - maxHeight(); row < ROWS; row++) {
+			emptyRow(row);
+		}
+		ringStart = other.ringStart;
+
+		for (int row = ROWS - otherHeight; row < ROWS; row++) {
+			int slot = slot(row);
+			System.arraycopy(other.rowWords, slot * WORDS, rowWords, slot * WORDS, WORDS);
+			rowCounts[slot] = other.rowCounts[slot];
+			rowColors[slot] = other.rowColors[slot];
+			rowHashes[slot] = other.rowHashes[slot];
+			if (other.rowCounts[slot] > 0) {
+				System.arraycopy(other.colorRows[slot], 0, colorRow(slot), 0, COLUMNS);
+			}
+		}
+		System.arraycopy(other.heights, 0, heights, 0, COLUMNS);
+		hash = other.hash;
+	}
+
+	/**
+	 * Checks if a piece shape can be placed with the top left corner of its
+	 * matrix at the given column and row. The shape's bounding box is
+	 * checked against the walls and the floor first. Then each precomputed
+	 * row mask of the shape is shifted to the piece's column and tested
+	 * against the matching word of the grid with a single AND, or two if it
+	 * straddles two words. Rows above the grid are empty.
+	 *
+	 * @param shape - 		the shape of the piece
+	 * @param rotation - 	rotation of the piece
+	 * @param pX - 			column of the piece
+	 * @param pY - 			row of the piece
+	 * @return				true if the piece does not collide with anything.
+	 * @see					PieceShape
+	 */
+	public boolean canPlace(PieceShape shape, int rotation, int pX, int pY) {
+		int bottom = shape.getMaxRow(rotation);
+		if (pX + shape.getMinCol(rotation) < 0 ||
+				pX + shape.getMaxCol(rotation) > COLUMNS - 1 ||
+				pY + bottom > ROWS - 1) {
+			return false;
+		}
+
+		int[] pieceRows = shape.getRowMasks(rotation);
+		int shift = pX + WALL_WIDTH;
+		int word = shift >>> 6, offset = shift & 63;
+		for (int prow = Math.max(shape.getMinRow(rotation), -pY); prow <= bottom; prow++) {
+			long bits = pieceRows[prow];
+			int index = slot(pY + prow) * WORDS + word;
+			if ((rowWords[index] & (bits << offset)) != 0) return false;
+			// The bounding box test makes sure the next word exists if any
+			// block spills into it
+			if (offset > 64 - PieceShape.SIZE) {
+				long spill = bits >>> (64 - offset);
+				if (spill != 0 && (rowWords[index + 1] & spill) != 0) return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the row where a piece shape lands if it is dropped straight down
+	 * from the given position, which must itself be free.
+	 * <p>
+	 * If the piece is above the skyline, it lands when the bottom most block
+	 * of one of its columns reaches the top of that column of the grid, which
+	 * is computed in constant time from the skyline and the shape's bottom
+	 * profile. If the piece has been tucked under an overhang, the skyline
+	 * can't be used and the piece is moved down one row at a time instead.
+	 *
+	 * @param shape - 		the shape of the piece
+	 * @param rotation - 	rotation of the piece
+	 * @param pX - 			column of the piece
+	 * @param pY - 			row of the piece
+	 * @return				the row of the piece once it has landed.
+	 */
+	public int dropRow(PieceShape shape, int rotation, int pX, int pY) {
+		int[] bottomProfile = shape.getColumnBottom(rotation);
+		int landing = Integer.MAX_VALUE;
+		for (int pcol = shape.getMinCol(rotation); pcol <= shape.getMaxCol(rotation); pcol++) {
+			int bottom = bottomProfile[pcol];
+			if (bottom < 0) continue;
+			// The top most filled row of the column, or the floor
+			int surface = ROWS - heights[pX + pcol];
+			landing = Math.min(landing, surface - 1 - bottom);
+		}
+		if (pY <= landing) return landing;
+
+		// Tucked under an overhang, fall back to collision tests
+		int y = pY;
+		while (canPlace(shape, rotation, pX, y + 1)) {
+			y++;
+		}
+		return y;
+	}
+
+	/**
+	 * Stores every block of a piece shape in the grid, with the top left
+	 * corner of its matrix at the given column and row. Blocks that
+	 * are above the grid can't be stored and are discarded.
+	 *
+	 * @param shape - 		the shape of the piece
+	 * @param rotation - 	rotation of the piece
+	 * @param pX - 			column of the piece
+	 * @param pY - 			row of the piece
+	 * @param spriteID - 	sprite ID of the piece's blocks
+	 * @return				false if any block was above the grid.
+	 */
+	public boolean lock(PieceShape shape, int rotation, int pX, int pY, int spriteID) {
+		int[] pieceRows = shape.getRowMasks(rotation);
+		boolean inside = true;
+
+		for (int prow = shape.getMinRow(rotation); prow <= shape.getMaxRow(rotation); prow++) {
+			int bits = pieceRows[prow];
+			if (pY + prow < 0) {
+				if (bits != 0) inside = false;
+				continue;
+			}
+			// Visit each solid block of the row, lowest column first
+			while (bits != 0) {
+				int pcol = Integer.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				setTile(pX + pcol, pY + prow, spriteID);
+			}
+		}
+		return inside;
+	}
+
+	/**
+	 * Stores a piece shape in the grid and clears the lines it fills, as the
+	 * game engine does when a piece lands. Used by simulations that do not
+	 * need to keep the score.
+	 *
+	 * @param shape - 			the shape of the piece
+	 * @param rotation - 		rotation of the piece
+	 * @param pX - 				column of the piece
+	 * @param pY - 				row of the piece
+	 * @param spriteID - 		sprite ID of the piece's blocks
+	 * @param sameColorOnly - 	whether rows must be of a single color to be
+	 * 							cleared, as in hardcore mode
+	 * @return					the number of lines cleared, or -1 if any
+	 * 							block was above the grid, which ends the game.
+	 */
+	public int lockAndClear(PieceShape shape, int rotation, int pX, int pY, int spriteID, boolean sameColorOnly) {
+		if (!lock(shape, rotation, pX, pY, spriteID)) return -1;
+		int cleared = clearLines(pY + shape.getMinRow(rotation), pY + shape.getMaxRow(rotation), sameColorOnly);
+		return Integer.bitCount(cleared);
+	}
+
+	/**
+	 * Stores a piece shape in the grid and clears the lines it fills, then,
+	 * in cascade mode, lets the blocks fall and clears the lines they fill
+	 * until they come to rest.
+	 *
+	 * @param shape - 			the shape of the piece
+	 * @param rotation - 		rotation of the piece
+	 * @param pX - 				column of the piece
+	 * @param pY - 				row of the piece
+	 * @param spriteID - 		sprite ID of the piece's blocks
+	 * @param sameColorOnly - 	whether rows must be of a single color to be
+	 * 							cleared, as in hardcore mode
+	 * @param cascade - 		whether blocks fall after a line clear, as in
+	 * 							cascade mode
+	 * @return					the number of lines cleared, or -1 if any
+	 * 							block was above the grid, which ends the game.
+	 * @see						#cascade()
+	 */
+	public int lockAndClear(PieceShape shape, int rotation, int pX, int pY, int spriteID,
+			boolean sameColorOnly, boolean cascade) {
+		int lines = lockAndClear(shape, rotation, pX, pY, spriteID, sameColorOnly);
+		if (cascade && lines > 0) lines += cascade();
+		return lines;
+	}
+
+	/**
+	 * Fills the tile at the given column and row with a block.
+	 *
+	 * @param col - 		column of the tile
+	 * @param row - 		row of the tile
+	 * @param spriteID - 	sprite ID of the block
+	 */
+	public void setTile(int col, int row, int spriteID) {
+		int slot = slot(row);
+		int index = slot * WORDS + ((WALL_WIDTH + col) >>> 6);
+		long bit = 1L << (WALL_WIDTH + col);
+		/* Store the index of sprites + 1 (because it has to be above 0 for
+		 * us to know that it represents a filled block!) */
+		byte color = (byte) (spriteID + 1);
+		byte[] colors = colorRow(slot);
+
+		if ((rowWords[index] & bit) == 0) {
+			rowWords[index] |= bit;
+			rowCounts[slot]++;
+			heights[col] = Math.max(heights[col], ROWS - row);
+			colors[col] = color;
+
+			long rowHash = rowHashes[slot];
+			rowHashes[slot] = rowHash ^ columnKeys[col];
+			hash ^= rowKey(row, rowHash) ^ rowKey(row, rowHashes[slot]);
+
+			if (rowColors[slot] == 0) rowColors[slot] = color;
+			else if (rowColors[slot] != color) rowColors[slot] = MIXED_ROW;
+		}
+		else if (colors[col] != color) {
+			// A block was painted over, which may have made the row uniform
+			colors[col] = color;
+			rowColors[slot] = uniformColor(slot);
+		}
+	}
+
+	/**
+	 * Finds the color shared by every block of a row by reading the whole
+	 * row. Only needed when a block changes color.
+	 *
+	 * @param slot - the place of the row in the ring buffer
+	 * @return the color of the row's blocks, 0 if the row is empty, or
+	 * MIXED_ROW.
+	 */
+	private byte uniformColor(int slot) {
+		byte rowColor = 0;
+		for (int col = 0; col < COLUMNS; col++) {
+			if (!isFilledAt(slot, col)) continue;
+			byte color = colorRows[slot][col];
+			if (rowColor == 0) rowColor = color;
+			else if (rowColor != color) return MIXED_ROW;
+		}
+		return rowColor;
+	}
+
+	/**
+	 * Finds the full rows between two rows of the grid, inclusive. Rows
+	 * outside of the grid are ignored.
+	 *
+	 * @param top - 	the top most row to check
+	 * @param bottom - 	the bottom most row to check, less than top + 32
+	 * @return			a mask where bit i is set if row (top + i) is full.
+	 */
+	public int findFullRows(int top, int bottom) {
+		int fullRows = 0;
+		for (int row = Math.max(top, 0); row <= Math.min(bottom, ROWS - 1); row++) {
+			if (rowCounts[slot(row)] == COLUMNS) fullRows |= 1 << (row - top);
+		}
+		return fullRows;
+	}
+
+	/**
+	 * Clears the full rows between two rows of the grid, inclusive, in a
+	 * single compaction pass. In hardcore mode, a full row must also be
+	 * filled with blocks of the same color in order to be cleared.
+	 *
+	 * @param top - 			the top most row to check
+	 * @param bottom - 			the bottom most row to check, less than top + 32
+	 * @param sameColorOnly - 	whether rows must be of a single color
+	 * @return					a mask where bit i is set if row (top + i) was
+	 * 							cleared.
+	 */
+	public int clearLines(int top, int bottom, boolean sameColorOnly) {
+		int fullRows = findFullRows(top, bottom);
+		if (sameColorOnly) {
+			for (int bits = fullRows; bits != 0; bits &= bits - 1) {
+				int row = top + Integer.numberOfTrailingZeros(bits);
+				if (!isRowUniform(row)) fullRows &= ~(1 << (row - top));
+			}
+		}
+		if (fullRows != 0) removeRows(top, fullRows);
+		return fullRows;
+	}
+
+	/**
+	 * Checks if all the blocks in a row are the same color, as required to
+	 * clear it in hardcore mode. An empty row is not uniform.
+	 *
+	 * @param row - the row to check
+	 * @return whether the row's blocks are all the same color.
+	 */
+	public boolean isRowUniform(int row) {
+		return rowColors[slot(row)] > 0;
+	}
+
+	/**
+	 * Removes several rows from the grid in a single compaction pass. The
+	 * remaining rows on one side of the removed rows are moved over them,
+	 * each at most once, and as many rows are emptied at the other end:
+	 * <ul>
+	 * <li>either the rows of the stack above the lowest removed row are moved
+	 * down, as they would fall, and the rows at the top of the stack are
+	 * emptied;</li>
+	 * <li>or the rows below the highest removed row are moved up, and the rows
+	 * at the bottom of the grid are emptied and become the top rows of the
+	 * grid by moving the start of the ring buffer.</li>
+	 * </ul>
+	 * The side with the fewest rows is moved, so clearing lines at the
+	 * bottom of a tall stack does not move the whole stack.
+	 *
+	 * @param top - 		the row matching bit 0 of the mask
+	 * @param rowsMask - 	a mask where bit i is set if row (top + i) must be
+	 * 						removed, as returned by findFullRows
+	 */
+	public void removeRows(int top, int rowsMask) {
+		int firstRow = ROWS - maxHeight();
+		int highestRow = top + Integer.numberOfTrailingZeros(rowsMask);
+		int lastRow = top + 31 - Integer.numberOfLeadingZeros(rowsMask);
+		int removed = Integer.bitCount(rowsMask);
+
+		/* Whichever side is moved, every row of the stack above a removed row
+		 * ends up that many rows lower, so its hash is moved from its old
+		 * place to its new one, and the hashes of the removed rows are taken
+		 * out. */
+		int fallen = 0;
+		for (int row = lastRow; row >= firstRow; row--) {
+			long rowHash = rowHashes[slot(row)];
+			if (isMarked(rowsMask, row - top)) {
+				hash ^= rowKey(row, rowHash);
+				fallen++;
+			}
+			else if (fallen > 0) {
+				hash ^= rowKey(row, rowHash) ^ rowKey(row + fallen, rowHash);
+			}
+		}
+
+		if (lastRow - firstRow < ROWS - highestRow) {
+			// Move the rows of the stack down, from the lowest removed row up
+			int to = lastRow;
+			for (int row = lastRow; row >= firstRow; row--) {
+				if (!isMarked(rowsMask, row - top)) moveRow(row, to--);
+			}
+			for (int row = firstRow; row <= to; row++) {
+				emptyRow(row);
+			}
+		}
+		else {
+			// Move the rows below the removed rows up, from the highest removed
+			// row down, then wrap the freed bottom rows around to the top
+			int to = highestRow;
+			for (int row = highestRow; row < ROWS; row++) {
+				if (!isMarked(rowsMask, row - top)) moveRow(row, to++);
+			}
+			for (int row = to; row < ROWS; row++) {
+				emptyRow(row);
+			}
+			ringStart = slot(to);
+		}
+
+		/* Every removed row was full, so it was at or below the top of every
+		 * column. The top block of a column thus moves down by the number of
+		 * removed rows, unless it was removed itself, in which case we look
+		 * further down for the next block of the column. */
+		for (int col = 0; col < COLUMNS; col++) {
+			int height = Math.max(heights[col] - removed, 0);
+			while (height > 0 && !isFilled(col, ROWS - height)) {
+				height--;
+			}
+			heights[col] = height;
+		}
+	}
+
+	/**
+	 * Clears every full row of the stack, wherever it is, as needed once
+	 * clusters of blocks have fallen. The rows are checked 32 at a time from
+	 * the top of the stack down, so the rows that fall into a group of rows
+	 * when lines are cleared have already been checked.
+	 *
+	 * @return the number of lines cleared.
+	 */
+	public int clearFullRows() {
+		int lines = 0;
+		for (int top = ROWS - maxHeight(); top < ROWS; top += 32) {
+			int fullRows = findFullRows(top, Math.min(top + 31, ROWS - 1));
+			if (fullRows != 0) {
+				removeRows(top, fullRows);
+				lines += Integer.bitCount(fullRows);
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Lets every cluster of blocks fall and clears the lines they fill, over
+	 * and over until the blocks come to rest, as in cascade mode. Used by
+	 * simulations; the game engine resolves one round of the cascade per
+	 * step, so that the player can see it.
+	 *
+	 * @return the number of lines cleared.
+	 * @see #settle()
+	 */
+	public int cascade() {
+		int lines = 0;
+		while (settle()) {
+			int cleared = clearFullRows();
+			if (cleared == 0) break;
+			lines += cleared;
+		}
+		return lines;
+	}
+
+	/**
+	 * Makes every cluster of blocks fall as a whole until it rests on the
+	 * floor or on another cluster, as in cascade mode. A cluster is a group
+	 * of blocks joined by their sides.
+	 * <p>
+	 * The clusters are found with a union-find over the blocks of the stack.
+	 * A cluster falls as far as the gap below each of its blocks allows, plus
+	 * however far the cluster under that gap falls itself, and the lowest
+	 * block of a column can fall to the floor. Those distances are found from
+	 * the floor up with a priority queue, like shortest paths, visiting each
+	 * cluster once and each gap once. Settling is thus near linear in the
+	 * number of tiles of the stack, however many clusters lean on each other.
+	 *
+	 * @return true if any block moved.
+	 */
+	public boolean settle() {
+		int height = maxHeight();
+		if (height == 0) return false;
+		int top = ROWS - height;
+		int tiles = height * COLUMNS;
+		if (clusterParent == null || clusterParent.length < tiles) {
+			clusterParent = new int[tiles];
+			clusterFall = new int[tiles];
+			clusterFirst = new int[tiles];
+			clusterNext = new int[tiles];
+			fallQueue = new long[tiles + COLUMNS];
+		}
+		int[] parent = clusterParent, fall = clusterFall, first = clusterFirst, next = clusterNext;
+
+		/* Join every block with the blocks on its left and above it, visiting
+		 * only the set bits of each word. Empty tiles have no parent. */
+		Arrays.fill(parent, 0, tiles, -1);
+		for (int row = top; row < ROWS; row++) {
+			int base = slot(row) * WORDS, rowTile = (row - top) * COLUMNS - WALL_WIDTH;
+			for (int word = 0; word < WORDS; word++) {
+				for (long bits = rowWords[base + word]; bits != 0; bits &= bits - 1) {
+					int tile = rowTile + (word << 6) + Long.numberOfTrailingZeros(bits);
+					parent[tile] = tile;
+					if (tile > rowTile + WALL_WIDTH && parent[tile - 1] >= 0) union(tile - 1, tile);
+					if (row > top && parent[tile - COLUMNS] >= 0) union(tile - COLUMNS, tile);
+				}
+			}
+		}
+
+		/* Point every block straight at the root of its cluster, and list the
+		 * blocks of each cluster. A root is the first block of its cluster,
+		 * so it is always reached before the other blocks. */
+		for (int tile = 0; tile < tiles; tile++) {
+			if (parent[tile] < 0) continue;
+			int root = find(tile);
+			parent[tile] = root;
+			if (root == tile) {
+				fall[root] = Integer.MAX_VALUE;
+				first[root] = -1;
+			}
+			next[tile] = first[root];
+			first[root] = tile;
+		}
+
+		// The lowest block of each column can fall down to the floor
+		int queued = 0;
+		for (int col = 0; col < COLUMNS; col++) {
+			for (int row = ROWS - 1; row >= ROWS - heights[col]; row--) {
+				int root = parent[(row - top) * COLUMNS + col];
+				if (root < 0) continue;
+				int distance = ROWS - 1 - row;
+				if (distance < fall[root]) {
+					fall[root] = distance;
+					queued = pushFall(queued, distance, root);
+				}
+				break;
+			}
+		}
+
+		/* Take the clusters in order of how far they fall. Once a cluster's
+		 * fall is known, every other cluster with a block right above one of
+		 * its blocks can fall that far plus the gap between the two blocks. */
+		while (queued > 0) {
+			long entry = fallQueue[0];
+			queued = popFall(queued);
+			int root = (int) entry, distance = (int) (entry >>> 32);
+			if (distance > fall[root]) continue;
+
+			for (int tile = first[root]; tile >= 0; tile = next[tile]) {
+				int above = tile - COLUMNS;
+				while (above >= 0 && parent[above] < 0) {
+					above -= COLUMNS;
+				}
+				if (above < 0 || parent[above] == root) continue;
+				int other = parent[above];
+				int reach = distance + (tile - above) / COLUMNS - 1;
+				if (reach < fall[other]) {
+					fall[other] = reach;
+					queued = pushFall(queued, reach, other);
+				}
+			}
+		}
+
+		/* Move the falling blocks from the bottom of the stack up, so that
+		 * every block lands on a tile that was empty or has already been
+		 * emptied. */
+		int highestMoved = ROWS;
+		for (int tile = tiles - 1; tile >= 0; tile--) {
+			if (parent[tile] < 0) continue;
+			int distance = fall[parent[tile]];
+			if (distance == 0) continue;
+			int row = top + tile / COLUMNS, col = tile % COLUMNS;
+			int color = colorRows[slot(row)][col];
+			emptyTile(col, row);
+			setTile(col, row + distance, color - 1);
+			highestMoved = row;
+		}
+		if (highestMoved == ROWS) return false;
+
+		// The rows blocks fell from and into may have changed color, and the
+		// columns may be lower
+		for (int row = highestMoved; row < ROWS; row++) {
+			int slot = slot(row);
+			rowColors[slot] = uniformColor(slot);
+		}
+		for (int col = 0; col < COLUMNS; col++) {
+			int columnHeight = heights[col];
+			while (columnHeight > 0 && !isFilled(col, ROWS - columnHeight)) {
+				columnHeight--;
+			}
+			heights[col] = columnHeight;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the block of a filled tile. The color of its row and the
+	 * height of its column are left to the caller.
+	 */
+	private void emptyTile(int col, int row) {
+		int slot = slot(row);
+		rowWords[slot * WORDS + ((WALL_WIDTH + col) >>> 6)] &= ~(1L << (WALL_WIDTH + col));
+		rowCounts[slot]--;
+
+		long rowHash = rowHashes[slot];
+		rowHashes[slot] = rowHash ^ columnKeys[col];
+		hash ^= rowKey(row, rowHash) ^ rowKey(row, rowHashes[slot]);
+	}
+
+	/**
+	 * @return the root of the cluster of a block, halving the path to it.
+	 */
+	private int find(int tile) {
+		int[] parent = clusterParent;
+		while (parent[tile] != tile) {
+			parent[tile] = parent[parent[tile]];
+			tile = parent[tile];
+		}
+		return tile;
+	}
+
+	/**
+	 * Joins the clusters of two blocks. The root with the lowest index
+	 * becomes the root of both.
+	 */
+	private void union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if (a < b) clusterParent[b] = a;
+		else if (b < a) clusterParent[a] = b;
+	}
+
+	/**
+	 * Adds a cluster to the heap of settle(), ordered by how far it falls.
+	 *
+	 * @return the new size of the heap.
+	 */
+	private int pushFall(int size, int distance, int root) {
+		long entry = (long) distance << 32 | root;
+		int i = size;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (fallQueue[up] <= entry) break;
+			fallQueue[i] = fallQueue[up];
+			i = up;
+		}
+		fallQueue[i] = entry;
+		return size + 1;
+	}
+
+	/**
+	 * Removes the cluster that falls the least from the heap of settle().
+	 *
+	 * @return the new size of the heap.
+	 */
+	private int popFall(int size) {
+		long last = fallQueue[--size];
+		int i = 0;
+		while (2 * i + 1 < size) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && fallQueue[child + 1] < fallQueue[child]) child++;
+			if (fallQueue[child] >= last) break;
+			fallQueue[i] = fallQueue[child];
+			i = child;
+		}
+		fallQueue[i] = last;
+		return size;
+	}
+
+	/**
+	 * Pushes every row of the grid up and adds rows of garbage below them, as
+	 * sent by an opponent in versus modes or laid out in dig modes. Every tile
+	 * of a garbage row is filled, except the tile at the hole's column. The
+	 * rows pushed above the grid are lost, so only the start of the ring
+	 * buffer moves and the garbage rows are written where the lost rows were.
+	 *
+	 * @param count - 		the number of garbage rows, from 0 to ROWS
+	 * @param hole - 		the column left empty in every garbage row, from 0
+	 * 						to COLUMNS - 1
+	 * @param spriteID - 	sprite ID of the garbage blocks
+	 * @return				false if any block was pushed above the grid.
+	 * @throws IllegalArgumentException if the hole is outside the grid
+	 */
+	public boolean addGarbage(int count, int hole, int spriteID) {
+		if (hole < 0 || hole >= COLUMNS) {
+			throw new IllegalArgumentException("Garbage hole must be in columns 0 to " + (COLUMNS - 1)
+					+ ", got " + hole);
+		}
+
+		// Every row of the stack moves up, so its hash moves with it
+		int maxHeight = maxHeight();
+		for (int row = ROWS - maxHeight; row < ROWS; row++) {
+			long rowHash = rowHashes[slot(row)];
+			hash ^= rowKey(row, rowHash);
+			if (row >= count) hash ^= rowKey(row - count, rowHash);
+		}
+
+		ringStart = slot(count);
+		byte color = (byte) (spriteID + 1);
+		long garbageHash = 0;
+		for (int col = 0; col < COLUMNS; col++) {
+			if (col != hole) garbageHash ^= columnKeys[col];
+		}
+		for (int row = ROWS - count; row < ROWS; row++) {
+			int slot = slot(row);
+			System.arraycopy(fullRow, 0, rowWords, slot * WORDS, WORDS);
+			rowWords[slot * WORDS + ((WALL_WIDTH + hole) >>> 6)] &= ~(1L << (WALL_WIDTH + hole));
+			rowCounts[slot] = COLUMNS - 1;
+			rowColors[slot] = COLUMNS > 1 ? color : 0;
+			rowHashes[slot] = garbageHash;
+			hash ^= rowKey(row, garbageHash);
+			Arrays.fill(colorRow(slot), color);
+		}
+
+		/* The top block of a column moves up with it, unless it was pushed
+		 * above the grid, in which case we look further down for the next
+		 * block of the column. */
+		for (int col = 0; col < COLUMNS; col++) {
+			int height = heights[col] > 0 ? heights[col] + count : (col != hole ? count : 0);
+			if (height > ROWS) {
+				height = ROWS;
+				while (height > 0 && !isFilled(col, ROWS - height)) {
+					height--;
+				}
+			}
+			heights[col] = height;
+		}
+		return maxHeight + count <= ROWS;
+	}
+
+	/**
+	 * @return the height of the highest column.
+	 */
+	private int maxHeight() {
+		int maxHeight = 0;
+		for (int col = 0; col < COLUMNS; col++) {
+			maxHeight = Math.max(maxHeight, heights[col]);
+		}
+		return maxHeight;
+	}
+
+	/**
+	 * @return the place in the ring buffer of a row, given from 0 to ROWS.
+	 */
+	private int slot(int row) {
+		int slot = ringStart + row;
+		return slot < ROWS ? slot : slot - ROWS;
+	}
+
+	/**
+	 * @return the colors of a row, allocated when the row is first filled.
+	 */
+	private byte[] colorRow(int slot) {
+		byte[] colors = colorRows[slot];
+		if (colors == null) {
+			colors = new byte[COLUMNS];
+			colorRows[slot] = colors;
+		}
+		return colors;
+	}
+
+	/**
+	 * Mixes the hash of a row with the key of its place in the grid. An
+	 * empty row adds nothing to the hash of the grid.
+	 */
+	private long rowKey(int row, long rowHash) {
+		return rowHash == 0 ? 0 : Zobrist.mix(rowHash ^ rowKeys[row]);
+	}
+
+	/**
+	 * Copies the blocks of a row over another row. The color arrays of the
+	 * two rows are swapped rather than copied, since the source row is
+	 * always overwritten or emptied afterwards.
+	 */
+	private void moveRow(int from, int to) {
+		if (from == to) return;
+		int source = slot(from), target = slot(to);
+		System.arraycopy(rowWords, source * WORDS, rowWords, target * WORDS, WORDS);
+		rowCounts[target] = rowCounts[source];
+		rowColors[target] = rowColors[source];
+		rowHashes[target] = rowHashes[source];
+		byte[] colors = colorRows[target];
+		colorRows[target] = colorRows[source];
+		colorRows[source] = colors;
+	}
+
+	/**
+	 * Removes every block of a row.
+	 */
+	private void emptyRow(int row) {
+		int slot = slot(row);
+		Arrays.fill(rowWords, slot * WORDS, (slot + 1) * WORDS, 0L);
+		rowCounts[slot] = 0;
+		rowColors[slot] = 0;
+		rowHashes[slot] = 0;
+	}
+
+	/**
+	 * @return true if bit i of the mask is set. The bits outside of an int
+	 * are never set.
+	 */
+	private static boolean isMarked(int rowsMask, int i) {
+		return i >= 0 && i < 32 && ((rowsMask >>> i) & 1) != 0;
+	}
+
+	/**
+	 * @param row - the row to check
+	 * @return true if every tile in the row is filled.
+	 */
+	public boolean isRowFull(int row) {
+		return rowCounts[slot(row)] == COLUMNS;
+	}
+
+	/**
+	 * @param row - the row to check
+	 * @return the number of filled tiles in the row.
+	 */
+	public int getFilledCount(int row) {
+		return rowCounts[slot(row)];
+	}
+
+	/**
+	 * @param row - the row to check
+	 * @return true if the row does not contain any blocks.
+	 */
+	public boolean isRowEmpty(int row) {
+		return rowCounts[slot(row)] == 0;
+	}
+
+	/**
+	 * @param col - column of the tile
+	 * @param row - row of the tile
+	 * @return true if the tile is filled with a block.
+	 */
+	public boolean isFilled(int col, int row) {
+		return isFilledAt(slot(row), col);
+	}
+
+	private boolean isFilledAt(int slot, int col) {
+		return (rowWords[slot * WORDS + ((WALL_WIDTH + col) >>> 6)] & (1L << (WALL_WIDTH + col))) != 0;
+	}
+
+	/**
+	 * @param col - the column to check
+	 * @return the number of rows from the floor to the top most block of the
+	 * column, or 0 if the column is empty.
+	 */
+	public int getColumnHeight(int col) {
+		return heights[col];
+	}
+
+	/**
+	 * Returns the color of a tile, which is the sprite ID of the block plus
+	 * 1, or 0 if the tile is empty.
+	 *
+	 * @param col - column of the tile
+	 * @param row - row of the tile
+	 * @return the color of the tile.
+	 */
+	public int getTileColor(int col, int row) {
+		int slot = slot(row);
+		return isFilledAt(slot, col) ? colorRows[slot][col] : 0;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the occupancy of the grid. Two playfields
+	 * of the same size with the same filled tiles have the same hash,
+	 * whatever their colors.
+	 *
+	 * @return the hash of the grid.
+	 * @see Zobrist
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Returns a hash of the colors of the rows of the grid, as far as they
+	 * decide which rows can be cleared in hardcore mode: the color shared by
+	 * every block of each non-empty row, or the fact that its blocks are of
+	 * different colors. Combined with the hash of the occupancy, it tells
+	 * apart boards that look the same but clear differently in hardcore
+	 * mode. Unlike getHash(), it is worked out on every call, in time
+	 * proportional to the height of the stack.
+	 *
+	 * @return the hash of the row colors of the grid.
+	 * @see #getHash()
+	 */
+	public long getColorHash() {
+		long colorHash = 0;
+		for (int row = ROWS - maxHeight(); row < ROWS; row++) {
+			int slot = slot(row);
+			if (rowCounts[slot] > 0) colorHash ^= Zobrist.mix(rowKeys[row] + rowColors[slot]);
+		}
+		return colorHash;
+	}
+}
@@ -0,0 +1,35 @@
+package com.phixyn.tetrisphix.engine;
+
+/**
+ * Randomizer that picks every piece uniformly at random, regardless of the
+ * previous pieces. This is how the game has always chosen its pieces.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Randomizer
+ */
+public class PureRandomizer extends SeededRandomizer {
+
+	/**
+	 * @param pieceCount - 	the number of piece types to choose from
+	 * @param seed - 		the seed of the sequence
+	 */
+	public PureRandomizer(int pieceCount, long seed) {
+		super(pieceCount, seed);
+	}
+
+	@Override
+	protected void reset() { /* no state */ }
+
+	@Override
+	public Randomizer copy() {
+		PureRandomizer copy = new PureRandomizer(pieceCount, getSeed());
+		copy.copyFrom(this);
+		return copy;
+	}
+
+	@Override
+	public int nextPiece() {
+		return nextInt(pieceCount);
+	}
+}
@@ -0,0 +1,61 @@
+package com.phixyn.tetrisphix.engine;
+
+/**
+ * Interface for the component that decides which pieces the game engine
+ * spawns. A randomizer is seeded explicitly, and the same seed always
+ * produces the same sequence of pieces, so that games can be reproduced.
+ * Generating a piece must not allocate any objects.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		GameEngine
+ * @see		SeededRandomizer
+ */
+public interface Randomizer {
+
+	/**
+	 * Seeds the randomizer and restarts its sequence of pieces.
+	 *
+	 * @param seed - the seed of the sequence
+	 */
+	void setSeed(long seed);
+
+	/**
+	 * @return the seed the current sequence was started with.
+	 */
+	long getSeed();
+
+	/**
+	 * @return the type of the next piece in the sequence.
+	 */
+	int nextPiece();
+
+	/**
+	 * Returns a random integer drawn from the same sequence as the pieces.
+	 * Used by the game engine for anything else that is random, such as the
+	 * colors of the pieces.
+	 *
+	 * @param bound - the upper bound (exclusive), must be positive
+	 * @return a random integer between 0 and bound - 1.
+	 */
+	int nextInt(int bound);
+
+	/**
+	 * Creates a randomizer of the same kind, in the same state. It is meant
+	 * to be called once, to create a buffer that copyFrom can then refill.
+	 *
+	 * @return the new randomizer.
+	 */
+	Randomizer copy();
+
+	/**
+	 * Copies the whole state of another randomizer of the same kind into
+	 * this one, without allocating anything. Both then produce the same
+	 * pieces and numbers.
+	 *
+	 * @param other - the randomizer to copy
+	 * @throws IllegalArgumentException if the other randomizer is of a
+	 * different kind.
+	 */
+	void copyFrom(Randomizer other);
+}
@@ -0,0 +1,85 @@
+package com.phixyn.tetrisphix.engine;
+
+/**
+ * Base class for randomizers. Generates random numbers with the SplitMix64
+ * algorithm, whose whole state is a single long, so that generating a number
+ * is cheap, never allocates and is the same on every JVM.
+ * <p>
+ * Subclasses implement nextPiece on top of nextInt and reset any state of
+ * their own in the reset method.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Randomizer
+ */
+public abstract class SeededRandomizer implements Randomizer {
+
+	// Number of piece types to choose from
+	protected final int pieceCount;
+
+	// Seed of the current sequence and state of the generator
+	private long seed;
+	private long state;
+
+	/**
+	 * @param pieceCount - 	the number of piece types to choose from
+	 * @param seed - 		the seed of the sequence
+	 */
+	protected SeededRandomizer(int pieceCount, long seed) {
+		this.pieceCount = pieceCount;
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.state = seed;
+		reset();
+	}
+
+	@Override
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Copies the seed and the state of the generator. Subclasses with state
+	 * of their own must override this method, call it, and copy their state.
+	 */
+	@Override
+	public void copyFrom(Randomizer other) {
+		if (other.getClass() != getClass()) {
+			throw new IllegalArgumentException("Can't copy a " + other.getClass().getSimpleName()
+					+ " into a " + getClass().getSimpleName());
+		}
+		SeededRandomizer seeded = (SeededRandomizer) other;
+		if (seeded.pieceCount != pieceCount) {
+			throw new IllegalArgumentException("Can't copy a randomizer of " + seeded.pieceCount
+					+ " pieces into one of " + pieceCount + " pieces");
+		}
+		this.seed = seeded.seed;
+		this.state = seeded.state;
+	}
+
+	/**
+	 * Restarts the subclass' own state after the randomizer has been seeded.
+	 */
+	protected abstract void reset();
+
+	/**
+	 * @return the next 64 random bits of the sequence.
+	 */
+	protected long nextLong() {
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		// Scale the top 32 bits to the bound, which avoids a division
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+}
@@ -0,0 +1,347 @@
+package com.phixyn.tetrisphix.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo history of a game, used by the practice mode. A version of
+ * the game is recorded after every piece placement, and the game can be
+ * moved back and forth to any recorded version, without limit. Recording a
+ * version after undoing discards the versions that could have been redone.
+ * <p>
+ * Versions are immutable and share their rows. The rows of a version are
+ * kept in a persistent tree indexed by their place in the playfield's ring
+ * buffer, with 32 children per node and the colors of a row, or nothing for
+ * an empty row, at each leaf. A new version copies only the path from the
+ * root to each row that changed, and shares every other row and subtree
+ * with the previous version. Since garbage and line clears move the start
+ * of the ring buffer rather than the rows themselves, most rows keep their
+ * place, and a row moved down by a line clear reuses the colors of the row
+ * it came from. A placement thus costs a few new rows and a few short paths
+ * of nodes, and long practice sessions use memory in proportion to what
+ * changed, however tall the board.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		GameEngine
+ * @see		GameSnapshot
+ */
+public class Timeline {
+
+	// Bits of a slot used at each level of the tree, and children per node
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private final GameEngine engine;
+
+	// Every recorded version, oldest first, and the one the game is at
+	private final List<Version> versions = new ArrayList<Version>();
+	private int position = -1;
+
+	// Buffer through which versions are saved and restored
+	private final GameSnapshot snapshot = new GameSnapshot();
+
+	/**
+	 * Creates the history of a game and records its current state as the
+	 * first version.
+	 *
+	 * @param engine - the game
+	 */
+	public Timeline(GameEngine engine) {
+		this.engine = engine;
+		record();
+	}
+
+	/**
+	 * Records the current state of the game as a new version, after the
+	 * current one. The versions that could have been redone are discarded.
+	 */
+	public void record() {
+		engine.saveSnapshot(snapshot);
+		Version previous = position >= 0 ? versions.get(position) : null;
+		versions.subList(position + 1, versions.size()).clear();
+		versions.add(new Version(snapshot, previous));
+		position++;
+	}
+
+	/**
+	 * Moves the game back to the previous version, if there is one.
+	 *
+	 * @return true if the game was moved.
+	 */
+	public boolean undo() {
+		if (position <= 0) return false;
+		jumpTo(position - 1);
+		return true;
+	}
+
+	/**
+	 * Moves the game forward to the next version, if it was undone.
+	 *
+	 * @return true if the game was moved.
+	 */
+	public boolean redo() {
+		if (position >= versions.size() - 1) return false;
+		jumpTo(position + 1);
+		return true;
+	}
+
+	/**
+	 * Moves the game to any recorded version.
+	 *
+	 * @param index - the index of the version, 0 being the first
+	 */
+	public void jumpTo(int index) {
+		versions.get(index).restore(snapshot);
+		engine.restoreSnapshot(snapshot);
+		position = index;
+	}
+
+	// Getter methods
+	public int getPosition() {
+		return position;
+	}
+
+	public int size() {
+		return versions.size();
+	}
+
+	/**
+	 * @return the shift of the root level of a tree holding the given number
+	 * of slots.
+	 */
+	private static int rootShift(int slots) {
+		int shift = 0;
+		while ((long) 1 << (shift + BITS) < slots) {
+			shift += BITS;
+		}
+		return shift;
+	}
+
+	/**
+	 * @return the row stored at a slot of a tree, or null if it is empty.
+	 */
+	private static byte[] getRow(Object[] root, int shift, int slot) {
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(slot >>> level) & MASK];
+			if (node == null) return null;
+		}
+		return (byte[]) node[slot & MASK];
+	}
+
+	/**
+	 * Stores a row at a slot of a tree, copying the nodes on the path to it.
+	 * A node already copied for the same new version, marked by the owner
+	 * in its last element, is changed in place, so that a version never
+	 * copies a node twice.
+	 *
+	 * @return the root of the tree holding the row.
+	 */
+	private static Object[] setRow(Object[] root, int shift, int slot, byte[] row, Object owner) {
+		Object[] top = own(root, owner);
+		Object[] node = top;
+		for (int level = shift; level > 0; level -= BITS) {
+			int child = (slot >>> level) & MASK;
+			Object[] next = own((Object[]) node[child], owner);
+			node[child] = next;
+			node = next;
+		}
+		node[slot & MASK] = row;
+		return top;
+	}
+
+	/**
+	 * @return the node itself if it belongs to the owner, or else a copy of
+	 * it, or a new empty node, that does.
+	 */
+	private static Object[] own(Object[] node, Object owner) {
+		if (node != null && node[WIDTH] == owner) return node;
+		Object[] copy = node != null ? node.clone() : new Object[WIDTH + 1];
+		copy[WIDTH] = owner;
+		return copy;
+	}
+
+	/**
+	 * Immutable state of the game after a placement.
+	 */
+	private static class Version {
+
+		/* Tree of the rows of the grid, by their place in the ring buffer,
+		 * the start of the ring buffer and the height of the stack. The
+		 * nodes and rows are shared with other versions and are never
+		 * modified once the version is built. */
+		final Object[] root;
+		final int shift;
+		final int rows;
+		final int ringStart;
+		final int height;
+
+		// Game data and information
+		final int playerScore;
+		final int linesClear;
+		final int linesLeft;
+		final int gameLevel;
+		final String gameMode;
+		final boolean isOver;
+
+		// Packed state and sprite ID of the current and upcoming pieces
+		final int currentPiece;
+		final int currentSpriteID;
+		final int[] preview, previewSpriteIDs;
+
+		// Copy of the randomizer, never advanced
+		final Randomizer randomizer;
+
+		/**
+		 * @param snapshot - 	the state of the game
+		 * @param previous - 	the version the game was at before, whose
+		 * 						rows are shared when possible, or null
+		 */
+		Version(GameSnapshot snapshot, Version previous) {
+			Playfield field = snapshot.playfield;
+			int height = 0;
+			for (int col = 0; col < field.COLUMNS; col++) {
+				height = Math.max(height, field.getColumnHeight(col));
+			}
+			this.shift = rootShift(field.ROWS);
+			this.rows = field.ROWS;
+			this.ringStart = field.getRingStart();
+			this.height = height;
+
+			Object[] tree = previous != null ? previous.root : new Object[WIDTH + 1];
+			// Marks the nodes copied for this version, which can be changed
+			// in place until it is built
+			Object owner = new Object();
+
+			/* Rows above the cleared lines moved down by the number of lines
+			 * cleared by the placement, so a row that changed is compared
+			 * with the row that was at the same place and with the row that
+			 * many rows above it in the previous version, whose colors are
+			 * reused if they match. */
+			int cleared = previous != null ? snapshot.linesClear - previous.linesClear : 0;
+			for (int row = field.ROWS - height; row < field.ROWS; row++) {
+				int slot = slotOf(field, ringStart, row);
+				byte[] old = getRow(tree, this.shift, slot);
+				if (field.isRowEmpty(row)) {
+					if (old != null) tree = setRow(tree, this.shift, slot, null, owner);
+					continue;
+				}
+				if (sameRow(field, row, old)) continue;
+
+				byte[] colors = null;
+				if (previous != null) {
+					byte[] moved = previous.getRowAt(row);
+					if (sameRow(field, row, moved)) colors = moved;
+					else if (cleared > 0 && row >= cleared && sameRow(field, row, moved = previous.getRowAt(row - cleared))) {
+						colors = moved;
+					}
+				}
+				if (colors == null) {
+					colors = new byte[field.COLUMNS];
+					for (int col = 0; col < field.COLUMNS; col++) {
+						colors[col] = (byte) field.getTileColor(col, row);
+					}
+				}
+				tree = setRow(tree, this.shift, slot, colors, owner);
+			}
+
+			// Empty the places of the previous stack that are now above the
+			// stack
+			if (previous != null) {
+				for (int row = field.ROWS - previous.height; row < field.ROWS; row++) {
+					int slot = slotOf(field, previous.ringStart, row);
+					int now = slot >= ringStart ? slot - ringStart : slot - ringStart + field.ROWS;
+					if (now < field.ROWS - height && getRow(tree, this.shift, slot) != null) {
+						tree = setRow(tree, this.shift, slot, null, owner);
+					}
+				}
+			}
+			this.root = tree;
+
+			this.playerScore = snapshot.playerScore;
+			this.linesClear = snapshot.linesClear;
+			this.linesLeft = snapshot.linesLeft;
+			this.gameLevel = snapshot.gameLevel;
+			this.gameMode = snapshot.gameMode;
+			this.isOver = snapshot.isOver;
+			this.currentPiece = snapshot.currentPiece;
+			this.currentSpriteID = snapshot.currentSpriteID;
+			this.preview = snapshot.preview.clone();
+			this.previewSpriteIDs = snapshot.previewSpriteIDs.clone();
+			this.randomizer = snapshot.randomizer.copy();
+		}
+
+		/**
+		 * @return the place in a ring buffer starting at ringStart of a row.
+		 */
+		private static int slotOf(Playfield field, int ringStart, int row) {
+			int slot = ringStart + row;
+			return slot < field.ROWS ? slot : slot - field.ROWS;
+		}
+
+		/**
+		 * @param row - the row of the grid
+		 * @return the colors of the row in this version, or null if the row
+		 * is empty.
+		 */
+		byte[] getRowAt(int row) {
+			if (row < rows - height) return null;
+			int slot = ringStart + row;
+			return getRow(root, shift, slot < rows ? slot : slot - rows);
+		}
+
+		private static boolean sameRow(Playfield field, int row, byte[] colors) {
+			if (colors == null) return false;
+			for (int col = 0; col < colors.length; col++) {
+				if (colors[col] != field.getTileColor(col, row)) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Copies this version into a snapshot, without sharing anything
+		 * mutable with it. The playfield gets the same layout of the ring
+		 * buffer as when the version was recorded, so that the next version
+		 * recorded shares its rows with this one.
+		 */
+		void restore(GameSnapshot snapshot) {
+			Playfield field = snapshot.playfield;
+			field.clear(ringStart);
+			for (int row = field.ROWS - height; row < field.ROWS; row++) {
+				byte[] colors = getRow(root, shift, slotOf(field, ringStart, row));
+				if (colors == null) continue;
+				for (int col = 0; col < colors.length; col++) {
+					if (colors[col] > 0) field.setTile(col, row, colors[col] - 1);
+				}
+			}
+
+			snapshot.playerScore = playerScore;
+			snapshot.linesClear = linesClear;
+			snapshot.linesLeft = linesLeft;
+			snapshot.gameLevel = gameLevel;
+			snapshot.gameMode = gameMode;
+			snapshot.isOver = isOver;
+			// Versions are recorded once a piece has spawned, never during a
+			// cascade, before gravity has moved the piece
+			snapshot.cascading = false;
+			snapshot.fallCredit = 0;
+			snapshot.restFrames = 0;
+			snapshot.currentPiece = currentPiece;
+			snapshot.currentSpriteID = currentSpriteID;
+			System.arraycopy(preview, 0, snapshot.preview, 0, preview.length);
+			System.arraycopy(previewSpriteIDs, 0, snapshot.previewSpriteIDs, 0, previewSpriteIDs.length);
+
+			// The snapshot's randomizer is overwritten by later saves, so this
+			// version's copy is never handed over
+			if (snapshot.randomizer == null || snapshot.randomizer.getClass() != randomizer.getClass()) {
+				snapshot.randomizer = randomizer.copy();
+			}
+			else {
+				snapshot.randomizer.copyFrom(randomizer);
+			}
+			snapshot.saved = true;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.phixyn.tetrisphix.engine;
+
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+
+/**
+ * Random keys for the Zobrist hashing of a game's state. The hash of a row
+ * of a playfield is the XOR of the keys of its filled columns, so it can be
+ * updated with a single XOR whenever a tile is filled or emptied, and it is
+ * mixed with the key of the row's place to make up the hash of the whole
+ * playfield. The hash of a game also includes the key of its current piece
+ * type.
+ * <p>
+ * The keys are generated from a fixed seed, so a hash is the same on every
+ * run and every JVM.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Playfield#getHash()
+ * @see		GameEngine#getHash()
+ */
+public final class Zobrist {
+
+	// Seed of the keys, and the value mixed into it for the row keys
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+	private static final long ROW_SEED = 0x9E3779B97F4A7C15L;
+
+	// Key of each piece type, indexed by the PieceRegistry constants
+	private static final long[] PIECE_KEYS = generateKeys(PieceRegistry.getPieceCount(), ~SEED);
+
+	// Column and row keys of the last board size asked for, shared by its
+	// playfields
+	private static long[] columnKeys = new long[0];
+	private static long[] rowKeys = new long[0];
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Returns the keys of the columns of a board. Every playfield with the
+	 * same number of columns shares the same array, which must not be
+	 * modified.
+	 *
+	 * @param columns - the number of columns of the board
+	 * @return the key of each column.
+	 */
+	static synchronized long[] getColumnKeys(int columns) {
+		if (columnKeys.length != columns) {
+			columnKeys = generateKeys(columns, SEED);
+		}
+		return columnKeys;
+	}
+
+	/**
+	 * Returns the keys of the rows of a board. Every playfield with the same
+	 * number of rows shares the same array, which must not be modified.
+	 *
+	 * @param rows - the number of rows of the board
+	 * @return the key of each row.
+	 */
+	static synchronized long[] getRowKeys(int rows) {
+		if (rowKeys.length != rows) {
+			rowKeys = generateKeys(rows, SEED ^ ROW_SEED);
+		}
+		return rowKeys;
+	}
+
+	/**
+	 * Scrambles the bits of a value, so that combining the hash of a row with
+	 * the key of its place can't cancel out with another row. This is the
+	 * finalizer of the SplitMix64 generator, which maps every value to a
+	 * different one.
+	 *
+	 * @param z - the value to scramble
+	 * @return the scrambled value.
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @param type - the piece type, one of the PieceRegistry constants
+	 * @return the key of the piece type.
+	 */
+	public static long getPieceKey(int type) {
+		return PIECE_KEYS[type];
+	}
+
+	private static long[] generateKeys(int count, long seed) {
+		SeededRandomizer random = new PureRandomizer(count, seed);
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = random.nextLong();
+		}
+		return keys;
+	}
+}
@@ -9,6 +9,10 @@ import com.phixyn.tetrisphix.piece.Piece;
  * different sprites that are contained in that spritesheet with the
  * loadSprites method. It is used by the Piece class to retrieve a sprite
  * chosen at random.
+ * <p>
+ * The spritesheet is loaded and sliced only once, the first time the shared
+ * instance is requested with the getInstance method. Every piece and panel
+ * then reads its sprites from that instance.
  * 
  * @author Alpeche Pancha
  * @version 1.0.5, 19 December 2014
@@ -22,12 +26,30 @@ public class Tetrominos {
 	// An array of BufferedImage objects containing all the sprites in the sheet
 	private BufferedImage[] sprites = new BufferedImage[7];
 	
+	/**
+	 * Holder of the shared instance. The JVM only initializes this class, and
+	 * thus only loads the spritesheet, the first time getInstance is called.
+	 */
+	private static class Holder {
+		private static final Tetrominos INSTANCE = new Tetrominos();
+	}
+	
+	/**
+	 * Returns the shared instance, loading the spritesheet if this is the
+	 * first call.
+	 * 
+	 * @return the shared Tetrominos object.
+	 */
+	public static Tetrominos getInstance() {
+		return Holder.INSTANCE;
+	}
+	
 	/**
 	 * Constructor method that attempts to load the spritesheet image file.
 	 * If it loads successfully, then the we retrieve all the sprites by
 	 * calling the loadSprites method.
 	 */
-	public Tetrominos() {
+	private Tetrominos() {
 		// Loader object used to load the spritesheet image
 		BufferedImageLoader loader = new BufferedImageLoader();
 		
@@ -61,7 +83,7 @@ public class Tetrominos {
 	 * Getter method for the sprites array.
 	 * 
 	 * @return sprites[] - a BufferedImage array containing all the sprites in
-	 * this spritesheet.
+	 * this spritesheet. The array is shared and must not be modified.
 	 */
 	public BufferedImage[] getSprites() {
 		return this.sprites;
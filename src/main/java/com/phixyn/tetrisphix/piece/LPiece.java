@@ -8,44 +8,49 @@ package com.phixyn.tetrisphix.piece;
  * @see		Piece
  */
 public class LPiece extends Piece {
+	
+	// Shape of this piece for each of its rotations, shared by every instance
+	static final PieceShape SHAPE = new PieceShape(new int[][][] {
+		/* Rotation 1 (UP) */
+		{
+			{0, 0, 0, 0},
+		    {0, 0, 0, 1},
+		    {0, 1, 1, 1},
+		    {0, 0, 0, 0}
+		},
+		/* Rotation 2 (RIGHT) */
+		{
+			{0, 0, 0, 0},
+		    {0, 0, 1, 0},
+		    {0, 0, 1, 0},
+		    {0, 0, 1, 1}
+		},
+		/* Rotation 3 (DOWN) */
+		{
+			{0, 0, 0, 0},
+		    {0, 0, 0, 0},
+		    {0, 1, 1, 1},
+		    {0, 1, 0, 0}
+		},
+		/* Rotation 4 (LEFT) */
+		{
+			{0, 0, 0, 0},
+		    {0, 1, 1, 0},
+		    {0, 0, 1, 0},
+		    {0, 0, 1, 0}
+	    }
+	});
+	
 	/**
 	 * Calls the constructor of Piece and initializes the pieceTiles array with
-	 * the 4 by 4 representation of the L-shaped Tetromino.
+	 * the shared 4 by 4 representation of the L-shaped Tetromino.
 	 */
 	public LPiece() {
 		super();
 		// This piece has 4 possible rotations according to TGM, using the ARS
 		this.possibleRotations = 4;
 		
-		this.pieceTiles = new int[][][] {
-			/* Rotation 1 (UP) */
-			{
-				{0, 0, 0, 0},
-			    {0, 0, 0, 1},
-			    {0, 1, 1, 1},
-			    {0, 0, 0, 0}
-			},
-			/* Rotation 2 (RIGHT) */
-			{
-				{0, 0, 0, 0},
-			    {0, 0, 1, 0},
-			    {0, 0, 1, 0},
-			    {0, 0, 1, 1}
-			},
-			/* Rotation 3 (DOWN) */
-			{
-				{0, 0, 0, 0},
-			    {0, 0, 0, 0},
-			    {0, 1, 1, 1},
-			    {0, 1, 0, 0}
-			},
-			/* Rotation 4 (LEFT) */
-			{
-				{0, 0, 0, 0},
-			    {0, 1, 1, 0},
-			    {0, 0, 1, 0},
-			    {0, 0, 1, 0}
-		    }
-		};
+		this.shape = SHAPE;
+		this.pieceTiles = SHAPE.getTiles();
 	}
 }
@@ -8,30 +8,35 @@ package com.phixyn.tetrisphix.piece;
  * @see		Piece
  */
 public class LinePiece extends Piece {
+	
+	// Shape of this piece for each of its rotations, shared by every instance
+	static final PieceShape SHAPE = new PieceShape(new int[][][] {
+		/* Rotation 1 (DOWN) */
+		{
+			{0, 0, 0, 0},
+		    {0, 0, 0, 0},
+		    {1, 1, 1, 1},
+		    {0, 0, 0, 0}
+		},
+		/* Rotation 2 (UP) */
+		{
+			{0, 1, 0, 0},
+		    {0, 1, 0, 0},
+		    {0, 1, 0, 0},
+		    {0, 1, 0, 0}
+		}
+	});
+	
 	/**
 	 * Calls the constructor of Piece and initializes the pieceTiles array with
-	 * the 4 by 4 representation of the I-shaped Tetromino.
+	 * the shared 4 by 4 representation of the I-shaped Tetromino.
 	 */
 	public LinePiece() {
 		super();
 		// This piece has 2 possible rotations according to TGM, using the ARS
 		this.possibleRotations = 2;
 		
-		this.pieceTiles = new int[][][] {
-			/* Rotation 1 (DOWN) */
-			{
-				{0, 0, 0, 0},
-			    {0, 0, 0, 0},
-			    {1, 1, 1, 1},
-			    {0, 0, 0, 0}
-			},
-			/* Rotation 2 (UP) */
-			{
-				{0, 1, 0, 0},
-			    {0, 1, 0, 0},
-			    {0, 1, 0, 0},
-			    {0, 1, 0, 0}
-			}
-		};	
+		this.shape = SHAPE;
+		this.pieceTiles = SHAPE.getTiles();	
 	}
 }
@@ -2,7 +2,6 @@ package com.phixyn.tetrisphix.piece;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.Random;
 
 import com.phixyn.tetrisphix.gfx.Tetrominos;
 
@@ -13,6 +12,11 @@ import com.phixyn.tetrisphix.gfx.Tetrominos;
  * important part of this class and is crucial in understanding how the pieces
  * are represented in the game. This array is explained in more detail below.
  * <p>
+ * The pieceTiles array and the PieceShape of a piece are shared by every
+ * piece of the same kind, and the sprite images are shared through the
+ * Tetrominos class, so that spawning a piece does no I/O and allocates very
+ * little.
+ * <p>
  * This abstract class also provides a method to draw the entire Tetromino
  * shape using a sprite image chosen at random. Additionally, it provides
  * various getter and setter methods used by other classes to access
@@ -20,6 +24,8 @@ import com.phixyn.tetrisphix.gfx.Tetrominos;
  * 
  * @author	Alpeche Pancha
  * @version 1.0.5, 19 December 2014
+ * @see		PieceShape
+ * @see		PieceRegistry
  * @see		Tetrominos
  */
 public abstract class Piece {
@@ -27,6 +33,12 @@ public abstract class Piece {
 	// Size, in pixels, of a single block
 	protected final int TILE_SIZE = 24;
 	
+	// Number of different sprites available on our spritesheet
+	public static final int SPRITE_COUNT = 7;
+
+	// Column and row of a new piece, before it is centered on the board
+	public static final int SPAWN_POSITION = -2;
+	
 	// X and Y coordinates, in columns and rows, of a piece
 	protected int x, y;
 	
@@ -43,7 +55,8 @@ public abstract class Piece {
 	/* Perhaps the most important part of this class.
 	 * 
 	 * This is a 3D array that holds information about the piece's shape
-	 * for each of its possible rotations. It stores a 4 by 4 matrix for each
+	 * for each of its possible rotations. It stores a square matrix, 4 by 4
+	 * for the Tetrominos and up to 5 by 5 for other pieces, for each
 	 * possible rotation. The values in these matrices are either 0 or 1.
 	 * A value of 1 means that the cell is a solid block and should be drawn.
 	 * 
@@ -53,45 +66,36 @@ public abstract class Piece {
 	 * how they all initialize this array. */
 	protected int[][][] pieceTiles;
 	
+	/* Precomputed bit masks, bounding boxes and profiles of the piece's
+	 * shape, built once from the pieceTiles array and shared by every piece
+	 * of the same kind. Used for collision and lock tests. */
+	protected PieceShape shape;
+	
 	// Boolean value indicating if the piece is currently moving down the board
 	protected boolean falling;
 	
-	// Tetrominos object used to access the spritesheet image containing sprites
-	// for the piece blocks
-	protected static Tetrominos blockSprites;
-	
-	// BufferedImage object containing the image that will be drawn for the
-	// solid blocks that make up the piece
-	protected BufferedImage pieceSprite;
+	// Index of this kind of piece in the PieceRegistry
+	protected int type;
 	
 	/**
-	 * Initializes the piece's attributes and selects a random sprite from
-	 * the Tetrominos spritesheet.
+	 * Initializes the piece's attributes. The piece uses the first sprite of
+	 * the Tetrominos spritesheet until its sprite ID is set. The sprite image
+	 * itself is only looked up when the piece is drawn, so creating a piece
+	 * does not touch the spritesheet.
 	 * 
 	 * @see Tetrominos
 	 */
 	public Piece() {
 		// Set the piece's column and row to -2. This will help the piece
 		// to spawn at a correct position on the board
-		this.x = -2;
-		this.y = -2;
+		this.x = SPAWN_POSITION;
+		this.y = SPAWN_POSITION;
 		
 		this.rotation = 0;
 
-		// Generate a number between 0 and 6, since there are 7 different
-		// sprites available on our spritesheet
-		Random rand = new Random();
-		this.spriteID = rand.nextInt(7);
-		
-		this.pieceTiles = new int[4 /* rotation */][4 /* rows */][4 /* columns */];
+		this.spriteID = 0;
 		
 		this.falling = true;
-
-		// Load the Tetrominos spritesheet
-		blockSprites = new Tetrominos();
-		
-		// Obtain the sprite from the spritesheet
-		this.pieceSprite = blockSprites.getSprites()[this.spriteID];
 	}
 	
 	/**
@@ -107,6 +111,19 @@ public abstract class Piece {
 	 * @param g2d - Graphics2D object used to draw the piece's sprite image
 	 */
 	public void draw(Graphics2D g2d) {
+		draw(g2d, this.y);
+	}
+	
+	/**
+	 * Draws the piece as if it was at the given row of the grid, keeping its
+	 * current column and rotation. Used to draw the ghost piece where the
+	 * piece will land.
+	 * 
+	 * @param g2d - Graphics2D object used to draw the piece's sprite image
+	 * @param y - the row at which the piece is drawn
+	 */
+	public void draw(Graphics2D g2d, int y) {
+		BufferedImage pieceSprite = getPieceSprite();
 		// Iterate through the matrix of the current rotation
 		// For each row in the matrix
 		for (int row = 0; row < pieceTiles[rotation].length; row++) {
@@ -149,17 +166,25 @@ public abstract class Piece {
 		return this.pieceTiles;
 	}
 	
+	public PieceShape getShape() {
+		return this.shape;
+	}
+	
+	public int getType() {
+		return this.type;
+	}
+	
 	public boolean isFalling() {
 		return this.falling;
 	}
 
-	// Access the spritesheet
+	// Access the shared spritesheet
 	public static Tetrominos getBlockSprites() {
-		return blockSprites;
+		return Tetrominos.getInstance();
 	}
 	
 	public BufferedImage getPieceSprite() {
-		return this.pieceSprite;
+		return Tetrominos.getInstance().getSprites()[this.spriteID];
 	}
 			
 	// Setter methods
@@ -178,4 +203,8 @@ public abstract class Piece {
 	public void setRotation(int pRotation) {
 		this.rotation = pRotation;
 	}
+	
+	public void setSpriteID(int spriteID) {
+		this.spriteID = spriteID;
+	}
 }
@@ -0,0 +1,119 @@
+package com.phixyn.tetrisphix.piece;
+
+import java.io.IOException;
+
+/**
+ * Registry of every kind of piece in the game. Each kind of piece is given a
+ * type, which is its index in the registry, and its PieceShape is built only
+ * once and shared by every piece of that kind. The registry is immutable.
+ * <p>
+ * The kinds of pieces come from a PieceSet, the seven Tetrominos unless
+ * another set is chosen with the tetrisphix.pieces system property, e.g.
+ * -Dtetrisphix.pieces=pentominoes, or the path of a piece set file. The
+ * type constants below only apply to the Tetrominos.
+ * <p>
+ * Pieces should be created with the create method, so that their type is set
+ * and they reference the shared shape tables.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Piece
+ * @see		PieceShape
+ */
+public final class PieceRegistry {
+
+	// Piece types of the Tetrominos
+	public static final int SQUARE = 0;
+	public static final int LINE = 1;
+	public static final int L = 2;
+	public static final int J = 3;
+	public static final int T = 4;
+	public static final int S = 5;
+	public static final int Z = 6;
+
+	// The pieces of the game, chosen once when the registry is loaded
+	private static final PieceSet PIECES = loadPieceSet(System.getProperty("tetrisphix.pieces"));
+
+	private PieceRegistry() { }
+
+	/**
+	 * Loads the piece set with the given name, or the Tetrominos if no name
+	 * is given or the set can't be loaded.
+	 */
+	private static PieceSet loadPieceSet(String name) {
+		if (name == null) return PieceSet.TETROMINOES;
+		try {
+			PieceSet pieces = PieceSet.forName(name);
+			System.out.println("[INFO] Playing with the " + pieces.getPieceCount() + " pieces of " + name + ".");
+			return pieces;
+		} catch (IOException | IllegalArgumentException ex) {
+			System.out.println("[ERROR] Error loading piece set " + name + ", playing with the Tetrominos.");
+			System.out.println("[ERROR] Reason: " + ex.getMessage());
+			return PieceSet.TETROMINOES;
+		}
+	}
+
+	/**
+	 * @return the piece set of the game.
+	 */
+	public static PieceSet getPieceSet() {
+		return PIECES;
+	}
+
+	/**
+	 * @return the number of piece types in the registry.
+	 */
+	public static int getPieceCount() {
+		return PIECES.getPieceCount();
+	}
+
+	/**
+	 * @param type - the piece type
+	 * @return the shared shape of the given piece type.
+	 */
+	public static PieceShape getShape(int type) {
+		return PIECES.getShape(type);
+	}
+
+	/**
+	 * Creates a new piece of the given type.
+	 *
+	 * @param type - the piece type
+	 * @return the new Piece object.
+	 */
+	public static Piece create(int type) {
+		Piece piece;
+		if (PIECES != PieceSet.TETROMINOES) {
+			piece = new PolyominoPiece(PIECES.getShape(type));
+			piece.type = type;
+			return piece;
+		}
+		switch (type) {
+			case SQUARE:
+				piece = new SquarePiece();
+				break;
+			case LINE:
+				piece = new LinePiece();
+				break;
+			case L:
+				piece = new LPiece();
+				break;
+			case J:
+				piece = new JPiece();
+				break;
+			case T:
+				piece = new TPiece();
+				break;
+			case S:
+				piece = new SPiece();
+				break;
+			case Z:
+				piece = new ZPiece();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown piece type: " + type);
+		}
+		piece.type = type;
+		return piece;
+	}
+}
@@ -0,0 +1,208 @@
+package com.phixyn.tetrisphix.piece;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable set of the kinds of pieces a game is played with. The seven
+ * Tetrominos are built in, and other sets, such as the pentominoes, are
+ * loaded from text so that new pieces need no code.
+ * <p>
+ * In the text of a piece set, blank lines and lines starting with '#' are
+ * ignored. Each piece starts with a line holding the word "piece" and the
+ * piece's name, followed by the rows of its square matrix, up to 5 by 5,
+ * with 'X' for a solid block and '.' for an empty cell:
+ * <pre>
+ * piece T
+ * ...
+ * XXX
+ * .X.
+ * </pre>
+ * The other rotations of a piece with a single matrix are generated by
+ * turning it clockwise. A piece can instead list the matrix of each of its
+ * rotations, side by side on the same rows and separated by spaces, to
+ * choose how it turns.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		PieceRegistry
+ * @see		PieceShape
+ */
+public final class PieceSet {
+
+	/* Largest number of kinds of pieces in a set. A piece's type is stored
+	 * in 6 bits of a PieceState, and the type with every bit set is left
+	 * out so that no state is ever NONE. */
+	public static final int MAX_PIECES = 63;
+
+	// Resource folder of the sets shipped with the game
+	private static final String RESOURCE_PATH = "/pieces/";
+
+	// The seven Tetrominos, indexed by the PieceRegistry constants
+	public static final PieceSet TETROMINOES = new PieceSet("tetrominoes",
+			new String[] { "O", "I", "L", "J", "T", "S", "Z" },
+			new PieceShape[] {
+				SquarePiece.SHAPE,
+				LinePiece.SHAPE,
+				LPiece.SHAPE,
+				JPiece.SHAPE,
+				TPiece.SHAPE,
+				SPiece.SHAPE,
+				ZPiece.SHAPE
+			});
+
+	private final String name;
+	private final String[] pieceNames;
+	private final PieceShape[] shapes;
+
+	private PieceSet(String name, String[] pieceNames, PieceShape[] shapes) {
+		this.name = name;
+		this.pieceNames = pieceNames;
+		this.shapes = shapes;
+	}
+
+	/**
+	 * Finds a piece set by name: the built-in Tetrominos, a set shipped with
+	 * the game, such as "pentominoes", or else a set in the file at the given
+	 * path.
+	 *
+	 * @param name - the name of the set, or the path of its file
+	 * @return the piece set.
+	 * @throws IOException if the set can't be found or read
+	 * @throws IllegalArgumentException if the set is not valid
+	 */
+	public static PieceSet forName(String name) throws IOException {
+		if (name.equals(TETROMINOES.name)) return TETROMINOES;
+
+		InputStream in = PieceSet.class.getResourceAsStream(RESOURCE_PATH + name + ".txt");
+		if (in == null) in = new FileInputStream(new File(name));
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			return parse(name, reader);
+		}
+	}
+
+	/**
+	 * Reads a piece set from its text.
+	 *
+	 * @param name - 	the name of the set
+	 * @param reader - 	the text of the set
+	 * @return			the piece set.
+	 * @throws IOException if the text can't be read
+	 * @throws IllegalArgumentException if the text is not a valid set, with
+	 * the number of the line at fault
+	 */
+	public static PieceSet parse(String name, BufferedReader reader) throws IOException {
+		List<String> names = new ArrayList<String>();
+		List<PieceShape> shapes = new ArrayList<PieceShape>();
+		List<String[]> rows = new ArrayList<String[]>();
+		String pieceName = null;
+		int lineNumber = 0, pieceLine = 0;
+
+		for (String line = reader.readLine(); ; line = reader.readLine()) {
+			lineNumber++;
+			String trimmed = line != null ? line.trim() : "";
+			if (trimmed.startsWith("#")) continue;
+
+			// A new piece, a blank line or the end of the text ends the rows
+			// of the last piece
+			if (line == null || trimmed.isEmpty() || trimmed.startsWith("piece ")) {
+				if (pieceName != null && !rows.isEmpty()) {
+					shapes.add(buildShape(rows, pieceName, pieceLine));
+					names.add(pieceName);
+					pieceName = null;
+					rows.clear();
+				}
+				if (line == null) break;
+				if (trimmed.isEmpty()) continue;
+
+				if (pieceName != null) {
+					throw new IllegalArgumentException("Line " + pieceLine + ": piece " + pieceName + " has no blocks");
+				}
+				pieceName = trimmed.substring("piece ".length()).trim();
+				pieceLine = lineNumber;
+				continue;
+			}
+
+			if (pieceName == null) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": expected \"piece <name>\"");
+			}
+			rows.add(trimmed.split("\\s+"));
+		}
+
+		if (pieceName != null) {
+			throw new IllegalArgumentException("Line " + pieceLine + ": piece " + pieceName + " has no blocks");
+		}
+		if (shapes.isEmpty() || shapes.size() > MAX_PIECES) {
+			throw new IllegalArgumentException("A piece set must have 1 to " + MAX_PIECES + " pieces, not "
+					+ shapes.size());
+		}
+		return new PieceSet(name, names.toArray(new String[names.size()]),
+				shapes.toArray(new PieceShape[shapes.size()]));
+	}
+
+	/**
+	 * Builds the shape of a piece from the rows of its matrices, generating
+	 * its rotations if it has a single matrix.
+	 */
+	private static PieceShape buildShape(List<String[]> rows, String pieceName, int pieceLine) {
+		int size = rows.size();
+		int rotations = rows.get(0).length;
+		int[][][] tiles = new int[rotations][size][size];
+		for (int row = 0; row < size; row++) {
+			String[] cells = rows.get(row);
+			if (cells.length != rotations) {
+				throw new IllegalArgumentException("Line " + (pieceLine + 1 + row) + ": piece " + pieceName
+						+ " must have " + rotations + " matrices on every row");
+			}
+			for (int rot = 0; rot < rotations; rot++) {
+				if (cells[rot].length() != size) {
+					throw new IllegalArgumentException("Line " + (pieceLine + 1 + row) + ": the matrix of piece "
+							+ pieceName + " must be " + size + " by " + size);
+				}
+				for (int col = 0; col < size; col++) {
+					char cell = cells[rot].charAt(col);
+					if (cell != 'X' && cell != '.') {
+						throw new IllegalArgumentException("Line " + (pieceLine + 1 + row)
+								+ ": unexpected '" + cell + "', cells must be 'X' or '.'");
+					}
+					tiles[rot][row][col] = cell == 'X' ? 1 : 0;
+				}
+			}
+		}
+
+		try {
+			PieceShape shape = rotations == 1 ? PieceShape.rotating(tiles[0]) : new PieceShape(tiles);
+			for (int rot = 0; rot < shape.getRotations(); rot++) {
+				if (shape.getMask(rot) == 0) throw new IllegalArgumentException("a rotation has no blocks");
+			}
+			return shape;
+		}
+		catch (IllegalArgumentException ex) {
+			throw new IllegalArgumentException("Line " + pieceLine + ": piece " + pieceName + ": " + ex.getMessage());
+		}
+	}
+
+	// Getter methods
+	public String getName() {
+		return this.name;
+	}
+
+	public int getPieceCount() {
+		return this.shapes.length;
+	}
+
+	public PieceShape getShape(int type) {
+		return this.shapes[type];
+	}
+
+	public String getPieceName(int type) {
+		return this.pieceNames[type];
+	}
+}
@@ -0,0 +1,206 @@
+package com.phixyn.tetrisphix.piece;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, precomputed representation of a piece's shape for each of its
+ * rotations. It is built once from the piece's pieceTiles matrices, which
+ * are square and up to 5 by 5, and shared by every instance of the piece,
+ * so that collision and lock tests can work on bit masks instead of walking
+ * the matrices. A shape can also be built from a single matrix, its other
+ * rotations being generated by turning it clockwise.
+ * <p>
+ * For every rotation, this class stores:
+ * <ul>
+ * <li>a 25-bit mask of the whole matrix, where bit (row * SIZE + column) is
+ * set if the cell is a solid block;</li>
+ * <li>a 5-bit mask for each row, where bit (column) is set if the cell is a
+ * solid block, ready to be shifted against a row of the board;</li>
+ * <li>the bounding box of the solid blocks;</li>
+ * <li>the profile of each column (its top and bottom most solid rows) and of
+ * each row (its left and right most solid columns), or -1 if the column or
+ * row is empty.</li>
+ * </ul>
+ * The arrays returned by the getter methods are shared and must not be
+ * modified.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Piece
+ */
+public final class PieceShape {
+
+	// Largest width and height of the pieceTiles matrices
+	public static final int SIZE = 5;
+
+	// Largest number of rotations of a shape
+	public static final int MAX_ROTATIONS = 4;
+
+	// The matrices this shape was built from
+	private final int[][][] tiles;
+
+	// Whole matrix and per-row bit masks of each rotation
+	private final int[] masks;
+	private final int[][] rowMasks;
+
+	// Bounding box of the solid blocks of each rotation
+	private final int[] minCol, maxCol, minRow, maxRow;
+
+	// Column and row profiles of each rotation
+	private final int[][] columnTop, columnBottom;
+	private final int[][] rowLeft, rowRight;
+
+	/**
+	 * Precomputes the masks, bounding boxes and profiles of every rotation.
+	 *
+	 * @param tiles - the square matrix of each rotation, up to SIZE by SIZE,
+	 * indexed as tiles[rotation][row][column]. A value above 0 is a solid
+	 * block.
+	 * @throws IllegalArgumentException if there are no rotations or more
+	 * than MAX_ROTATIONS, or if a matrix is not square or is too large
+	 */
+	public PieceShape(int[][][] tiles) {
+		int rotations = tiles.length;
+		if (rotations < 1 || rotations > MAX_ROTATIONS) {
+			throw new IllegalArgumentException("A shape must have 1 to " + MAX_ROTATIONS
+					+ " rotations, not " + rotations);
+		}
+		for (int[][] matrix : tiles) {
+			if (matrix.length > SIZE) {
+				throw new IllegalArgumentException("A shape can't be larger than " + SIZE + " by " + SIZE);
+			}
+			for (int[] row : matrix) {
+				if (row.length != matrix.length) {
+					throw new IllegalArgumentException("The matrix of a shape must be square");
+				}
+			}
+		}
+		this.tiles = tiles;
+		this.masks = new int[rotations];
+		this.rowMasks = new int[rotations][SIZE];
+		this.minCol = new int[rotations];
+		this.maxCol = new int[rotations];
+		this.minRow = new int[rotations];
+		this.maxRow = new int[rotations];
+		this.columnTop = new int[rotations][SIZE];
+		this.columnBottom = new int[rotations][SIZE];
+		this.rowLeft = new int[rotations][SIZE];
+		this.rowRight = new int[rotations][SIZE];
+
+		for (int rot = 0; rot < rotations; rot++) {
+			minCol[rot] = minRow[rot] = SIZE;
+			maxCol[rot] = maxRow[rot] = -1;
+			for (int i = 0; i < SIZE; i++) {
+				columnTop[rot][i] = columnBottom[rot][i] = -1;
+				rowLeft[rot][i] = rowRight[rot][i] = -1;
+			}
+
+			int size = tiles[rot].length;
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					if (tiles[rot][row][col] <= 0) continue;
+
+					masks[rot] |= 1 << (row * SIZE + col);
+					rowMasks[rot][row] |= 1 << col;
+
+					minCol[rot] = Math.min(minCol[rot], col);
+					maxCol[rot] = Math.max(maxCol[rot], col);
+					minRow[rot] = Math.min(minRow[rot], row);
+					maxRow[rot] = Math.max(maxRow[rot], row);
+
+					// Rows and columns are visited in increasing order, so the
+					// first block seen is the top or left most one
+					if (columnTop[rot][col] < 0) columnTop[rot][col] = row;
+					columnBottom[rot][col] = row;
+					if (rowLeft[rot][row] < 0) rowLeft[rot][row] = col;
+					rowRight[rot][row] = col;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds a shape from a single matrix, generating its other rotations
+	 * by turning the matrix clockwise around its center. Turning stops at
+	 * the first rotation that is the same as the first one, so a symmetric
+	 * shape has only 1 or 2 rotations.
+	 *
+	 * @param matrix - the square matrix of the first rotation, up to SIZE by
+	 * SIZE, indexed as matrix[row][column]
+	 * @return the shape with every distinct rotation of the matrix.
+	 */
+	public static PieceShape rotating(int[][] matrix) {
+		int[][][] rotations = new int[MAX_ROTATIONS][][];
+		rotations[0] = matrix;
+		int count = 1;
+		while (count < MAX_ROTATIONS) {
+			int[][] turned = turnClockwise(rotations[count - 1]);
+			if (Arrays.deepEquals(turned, matrix)) break;
+			rotations[count++] = turned;
+		}
+		return new PieceShape(Arrays.copyOf(rotations, count));
+	}
+
+	/**
+	 * @return a copy of a square matrix turned 90 degrees clockwise.
+	 */
+	private static int[][] turnClockwise(int[][] matrix) {
+		int size = matrix.length;
+		int[][] turned = new int[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				turned[col][size - 1 - row] = matrix[row][col];
+			}
+		}
+		return turned;
+	}
+
+	// Getter methods
+	public int getRotations() {
+		return this.tiles.length;
+	}
+
+	public int[][][] getTiles() {
+		return this.tiles;
+	}
+
+	public int getMask(int rotation) {
+		return this.masks[rotation];
+	}
+
+	public int[] getRowMasks(int rotation) {
+		return this.rowMasks[rotation];
+	}
+
+	public int getMinCol(int rotation) {
+		return this.minCol[rotation];
+	}
+
+	public int getMaxCol(int rotation) {
+		return this.maxCol[rotation];
+	}
+
+	public int getMinRow(int rotation) {
+		return this.minRow[rotation];
+	}
+
+	public int getMaxRow(int rotation) {
+		return this.maxRow[rotation];
+	}
+
+	public int[] getColumnTop(int rotation) {
+		return this.columnTop[rotation];
+	}
+
+	public int[] getColumnBottom(int rotation) {
+		return this.columnBottom[rotation];
+	}
+
+	public int[] getRowLeft(int rotation) {
+		return this.rowLeft[rotation];
+	}
+
+	public int[] getRowRight(int rotation) {
+		return this.rowRight[rotation];
+	}
+}
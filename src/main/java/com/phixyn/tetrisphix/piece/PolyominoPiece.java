@@ -0,0 +1,31 @@
+package com.phixyn.tetrisphix.piece;
+
+/**
+ * Piece of any shape, used for the pieces of piece sets loaded from text,
+ * such as the pentominoes. Unlike the Tetromino subclasses, its shape is
+ * given when it is created, so a single class covers every kind of piece.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ * @see		Piece
+ * @see		PieceSet
+ */
+public class PolyominoPiece extends Piece {
+
+	/**
+	 * Calls the constructor of Piece and initializes the pieceTiles array with
+	 * the matrices of the given shape, which are shared with every other
+	 * piece of the same kind.
+	 *
+	 * @param shape - the shape of the piece
+	 */
+	public PolyominoPiece(PieceShape shape) {
+		super();
+		// A piece whose only rotation is itself can't be rotated, like the
+		// Square-shaped Tetromino
+		this.possibleRotations = shape.getRotations() > 1 ? shape.getRotations() : 0;
+
+		this.shape = shape;
+		this.pieceTiles = shape.getTiles();
+	}
+}
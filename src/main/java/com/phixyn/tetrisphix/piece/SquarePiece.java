@@ -8,23 +8,28 @@ package com.phixyn.tetrisphix.piece;
  * @see		Piece
  */
 public class SquarePiece extends Piece {
+	
+	// Shape of this piece for each of its rotations, shared by every instance
+	static final PieceShape SHAPE = new PieceShape(new int[][][] {
+		/* Rotation 1 (EVERYTHING BECAUSE IT'S A SQUARE!) */
+		{
+		    {0, 0, 0, 0},
+		    {0, 1, 1, 0},
+		    {0, 1, 1, 0},
+		    {0, 0, 0, 0}
+		}
+	});
+	
 	/**
 	 * Calls the constructor of Piece and initializes the pieceTiles array with
-	 * the 4 by 4 representation of the Square-shaped Tetromino.
+	 * the shared 4 by 4 representation of the Square-shaped Tetromino.
 	 */
 	public SquarePiece() {
 		super();
 		// This piece has no possible rotations according to TGM, using the ARS
 		this.possibleRotations = 0;
 		
-		this.pieceTiles = new int[][][] {
-			/* Rotation 1 (EVERYTHING BECAUSE IT'S A SQUARE!) */
-			{
-			    {0, 0, 0, 0},
-			    {0, 1, 1, 0},
-			    {0, 1, 1, 0},
-			    {0, 0, 0, 0}
-			}
-		};
+		this.shape = SHAPE;
+		this.pieceTiles = SHAPE.getTiles();
 	}		
 }
@@ -0,0 +1,59 @@
+package com.phixyn.tetrisphix.engine;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+
+/**
+ * Tests of the game engine.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ */
+public class GameEngineTest {
+
+	private static final long SEED = 42;
+
+	@Test
+	public void rejectsBoardsTooNarrowForThePieces() {
+		for (int columns = 1; columns < GameEngine.MIN_COLUMNS; columns++) {
+			final int width = columns;
+			assertThrows(IllegalArgumentException.class, new Executable() {
+				@Override
+				public void execute() {
+					new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED), width, 20);
+				}
+			});
+		}
+	}
+
+	@Test
+	public void playsNarrowBoardsUntilGameOver() {
+		for (int columns = GameEngine.MIN_COLUMNS; columns <= GameEngine.MIN_COLUMNS + 2; columns++) {
+			GameEngine engine = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED), columns, 20);
+			engine.start(SEED);
+			for (int i = 0; i < 10000 && !engine.isOver(); i++) {
+				// Wiggle and turn every piece into the walls
+				if (i % 3 == 0) engine.moveLeft();
+				else if (i % 3 == 1) engine.moveRight();
+				else engine.rotate();
+				engine.step();
+			}
+			assertTrue(engine.isOver(), "a " + columns + " column board should fill up");
+		}
+	}
+
+	@Test
+	public void narrowestBoardFitsEverySpawnedPiece() {
+		GameEngine engine = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED),
+				GameEngine.MIN_COLUMNS, 20);
+		engine.start(SEED);
+		assertFalse(engine.isOver());
+		assertTrue(engine.getLandingRow() >= engine.getCurrentPiece().getY());
+	}
+}
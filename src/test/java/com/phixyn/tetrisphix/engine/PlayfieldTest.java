@@ -0,0 +1,87 @@
+package com.phixyn.tetrisphix.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests of the playfield.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ */
+public class PlayfieldTest {
+
+	@Test
+	public void garbageRowsLeaveTheHoleEmpty() {
+		Playfield field = new Playfield(10, 20);
+		assertTrue(field.addGarbage(3, 4, 2));
+		for (int row = 17; row < 20; row++) {
+			assertEquals(9, field.getFilledCount(row));
+			assertFalse(field.isRowFull(row));
+			for (int col = 0; col < 10; col++) {
+				assertEquals(col != 4, field.isFilled(col, row));
+			}
+		}
+		assertTrue(field.isRowEmpty(16));
+	}
+
+	@Test
+	public void rejectsGarbageHolesOutsideTheGrid() {
+		final Playfield field = new Playfield(10, 20);
+		long hash = field.getHash();
+		for (final int hole : new int[] { -1, 10, Integer.MIN_VALUE, Integer.MAX_VALUE }) {
+			assertThrows(IllegalArgumentException.class, new Executable() {
+				@Override
+				public void execute() {
+					field.addGarbage(2, hole, 0);
+				}
+			});
+		}
+		// The grid is left untouched
+		assertEquals(hash, field.getHash());
+		for (int row = 0; row < 20; row++) {
+			assertTrue(field.isRowEmpty(row));
+		}
+	}
+
+	@Test
+	public void engineRejectsGarbageHolesOutsideTheBoard() {
+		final GameEngine engine = new GameEngine(new BagRandomizer(7, 1));
+		engine.start(1);
+		assertThrows(IllegalArgumentException.class, new Executable() {
+			@Override
+			public void execute() {
+				engine.addGarbage(1, engine.getColumns(), 0);
+			}
+		});
+		assertTrue(engine.getPlayfield().isRowEmpty(engine.getRows() - 1));
+	}
+
+	@Test
+	public void colorHashTellsApartRowsOfDifferentColors() {
+		Playfield uniform = new Playfield(10, 20);
+		Playfield mixed = new Playfield(10, 20);
+		Playfield other = new Playfield(10, 20);
+		for (int col = 0; col < 9; col++) {
+			uniform.setTile(col, 19, 2);
+			mixed.setTile(col, 19, col == 0 ? 3 : 2);
+			other.setTile(col, 19, 5);
+		}
+		// Same blocks, so the same occupancy hash
+		assertEquals(uniform.getHash(), mixed.getHash());
+		assertEquals(uniform.getHash(), other.getHash());
+		assertNotEquals(uniform.getColorHash(), mixed.getColorHash());
+		assertNotEquals(uniform.getColorHash(), other.getColorHash());
+		assertNotEquals(mixed.getColorHash(), other.getColorHash());
+
+		// Mixed rows hash the same whatever their colors
+		other.setTile(0, 19, 4);
+		assertEquals(mixed.getColorHash(), other.getColorHash());
+	}
+}
@@ -0,0 +1,84 @@
+package com.phixyn.tetrisphix.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.phixyn.tetrisphix.piece.PieceRegistry;
+
+/**
+ * Tests of the practice mode's undo and redo history.
+ *
+ * @author	Alpeche Pancha
+ * @version 1.0.5
+ */
+public class TimelineTest {
+
+	private static final long SEED = 7;
+
+	/**
+	 * Places the current piece at one of a few columns and records the new
+	 * version, restarting the game if it is over.
+	 */
+	private static void place(GameEngine engine, Timeline timeline, int i) {
+		if (engine.isOver()) engine.start(SEED + i);
+		for (int move = 0; move < i % 5; move++) engine.moveLeft();
+		for (int move = 0; move < i % 7; move++) engine.moveRight();
+		engine.hardDrop();
+		engine.step();
+		// Garbage now and then, so that rows are pushed up as well as down
+		if (i % 9 == 0) engine.addGarbage(1, i % engine.getColumns(), 0);
+		timeline.record();
+	}
+
+	@Test
+	public void undoRestoresEveryRecordedBoard() {
+		// A tall board, so that the stack only covers its bottom rows
+		GameEngine engine = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED), 10, 200);
+		engine.start(SEED);
+		Timeline timeline = new Timeline(engine);
+		List<Long> hashes = new ArrayList<Long>();
+		List<Integer> scores = new ArrayList<Integer>();
+		hashes.add(engine.getPlayfield().getHash());
+		scores.add(engine.getPlayerScore());
+		for (int i = 1; i < 300; i++) {
+			place(engine, timeline, i);
+			hashes.add(engine.getPlayfield().getHash());
+			scores.add(engine.getPlayerScore());
+		}
+
+		for (int index = hashes.size() - 1; index >= 0; index--) {
+			timeline.jumpTo(index);
+			assertEquals((long) hashes.get(index), engine.getPlayfield().getHash(), "version " + index);
+			assertEquals((int) scores.get(index), engine.getPlayerScore(), "version " + index);
+		}
+	}
+
+	@Test
+	public void historyHasNoLimit() {
+		GameEngine engine = new GameEngine(new BagRandomizer(PieceRegistry.getPieceCount(), SEED));
+		engine.start(SEED);
+		Timeline timeline = new Timeline(engine);
+		GameSnapshot first = new GameSnapshot();
+		engine.saveSnapshot(first);
+		int placements = 3000;
+		for (int i = 1; i <= placements; i++) {
+			place(engine, timeline, i);
+		}
+		long latest = engine.getPlayfield().getHash();
+
+		assertEquals(placements + 1, timeline.size());
+		int undone = 0;
+		while (timeline.undo()) undone++;
+		assertEquals(placements, undone);
+		assertEquals(first.getPlayfield().getHash(), engine.getPlayfield().getHash());
+
+		while (timeline.redo()) { }
+		assertEquals(placements, timeline.getPosition());
+		assertEquals(latest, engine.getPlayfield().getHash());
+	}
+}